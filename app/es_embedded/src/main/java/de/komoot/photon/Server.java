@@ -31,6 +31,7 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -131,6 +132,26 @@ public class Server {
         esClient.admin().indices().prepareRefresh(PhotonIndex.NAME).get();
     }
 
+    /**
+     * The embedded Elasticsearch always refreshes the index after updates and
+     * keeps its default index settings after an import.
+     */
+    public void setRefreshSettings(String updateRefresh, String refreshInterval, int numReplicas) {
+        if (!"index".equals(updateRefresh)) {
+            throw new UsageException("Refresh policy '" + updateRefresh + "' not supported for elasticsearch-based Photon. Consider to use OpenSearch.");
+        }
+    }
+
+    /**
+     * The lenient query of a forward search is always sent after the strict
+     * query has returned no results.
+     */
+    public void setSearchFallback(String searchFallback) {
+        if (!"sequential".equals(searchFallback)) {
+            throw new UsageException("Search fallback '" + searchFallback + "' not supported for elasticsearch-based Photon. Consider to use OpenSearch.");
+        }
+    }
+
     /**
      * stops the elasticsearch node
      */
@@ -200,6 +221,26 @@ public class Server {
                           .putMapping(esClient, PhotonIndex.NAME, PhotonIndex.TYPE);
     }
 
+    public DatabaseProperties createVersionedIndex(String[] languages, Date importDate, boolean supportStructuredQueries) throws IOException {
+        throw new UsageException("Versioned indexes are not supported for elasticsearch-based Photon. Consider to use OpenSearch.");
+    }
+
+    public void activateVersionedIndex(boolean forceMerge) throws IOException {
+        throw new UsageException("Versioned indexes are not supported for elasticsearch-based Photon. Consider to use OpenSearch.");
+    }
+
+    public String getImportIndexName() {
+        return PhotonIndex.NAME;
+    }
+
+    public DatabaseProperties resumeIndex(String indexName) throws IOException {
+        if (!PhotonIndex.NAME.equals(indexName)) {
+            throw new UsageException("Cannot resume import: unknown index '" + indexName + "'.");
+        }
+
+        return loadFromDatabase();
+    }
+
     public void updateIndexSettings(String synonymFile) throws IOException {
         // Load the settings from the database to make sure it is at the right
         // version. If the version is wrong, we should not be messing with the
@@ -287,6 +328,22 @@ public class Server {
         return new de.komoot.photon.elasticsearch.Importer(esClient, languages, extraTags);
     }
 
+    /**
+     * Create an importer that writes a json dump. Only single-file dumps
+     * are available.
+     */
+    public static Importer createJsonDumper(String filename, int numShards, boolean compress,
+                                            String[] languages, String[] extraTags) throws IOException {
+        if (numShards > 0) {
+            throw new UsageException("Sharded json dumps are not supported for elasticsearch-based Photon. Consider to use OpenSearch.");
+        }
+        return new JsonDumper(filename, languages, extraTags);
+    }
+
+    public long loadJsonDump(List<String> files, int numThreads, ImportStatistics statistics) {
+        throw new UsageException("Loading json dumps is not supported for elasticsearch-based Photon. Consider to use OpenSearch.");
+    }
+
     public Updater createUpdater(String[] languages, String[] extraTags) {
         return new de.komoot.photon.elasticsearch.Updater(esClient, languages, extraTags);
     }
@@ -1,6 +1,8 @@
 package de.komoot.photon.elasticsearch;
 
+import de.komoot.photon.ImportStatistics;
 import de.komoot.photon.PhotonDoc;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.client.Client;
@@ -15,11 +17,13 @@ public class Importer implements de.komoot.photon.Importer {
     private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(Importer.class);
 
     private int documentCount = 0;
+    private boolean failedSinceFlush = false;
 
     private final Client esClient;
     private BulkRequestBuilder bulkRequest;
     private final String[] languages;
     private final String[] extraTags;
+    private ImportStatistics statistics = new ImportStatistics();
 
     public Importer(Client esClient, String[] languages, String[] extraTags) {
         this.esClient = esClient;
@@ -28,6 +32,11 @@ public class Importer implements de.komoot.photon.Importer {
         this.extraTags = extraTags;
     }
 
+    @Override
+    public void setStatistics(ImportStatistics statistics) {
+        this.statistics = statistics;
+    }
+
     @Override
     public void add(PhotonDoc doc, int objectId) {
         String uid = doc.getUid(objectId);
@@ -36,6 +45,7 @@ public class Importer implements de.komoot.photon.Importer {
                     setSource(PhotonDocConverter.convert(doc, languages, extraTags)).setId(uid));
         } catch (IOException e) {
             LOGGER.error("Could not bulk add document {}", uid, e);
+            failedSinceFlush = true;
             return;
         }
         this.documentCount += 1;
@@ -47,13 +57,33 @@ public class Importer implements de.komoot.photon.Importer {
     private void saveDocuments() {
         if (this.documentCount < 1) return;
 
+        final long startMillis = System.currentTimeMillis();
         BulkResponse bulkResponse = bulkRequest.execute().actionGet();
+        int numRejected = 0;
         if (bulkResponse.hasFailures()) {
             LOGGER.error("Error during bulk import: {}", bulkResponse.buildFailureMessage());
+            failedSinceFlush = true;
+            for (BulkItemResponse item : bulkResponse.getItems()) {
+                if (item.isFailed()) {
+                    ++numRejected;
+                }
+            }
         }
+        statistics.addBulkRequest(bulkRequest.numberOfActions(), numRejected, System.currentTimeMillis() - startMillis);
         this.bulkRequest = this.esClient.prepareBulk();
     }
 
+    @Override
+    public boolean flush() {
+        if (bulkRequest.numberOfActions() > 0) {
+            this.saveDocuments();
+        }
+
+        final boolean success = !failedSinceFlush;
+        failedSinceFlush = false;
+        return success;
+    }
+
     @Override
     public void finish() {
         this.saveDocuments();
@@ -1,12 +1,19 @@
 package de.komoot.photon.elasticsearch;
 
 import de.komoot.photon.PhotonDoc;
+import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetRequestBuilder;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Updater for ElasticSearch.
@@ -14,10 +21,13 @@ import java.io.IOException;
 public class Updater implements de.komoot.photon.Updater {
     private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(Updater.class);
 
+    private static final int SUBSEQUENT_WINDOW = 4;
+
     private final Client esClient;
     private BulkRequestBuilder bulkRequest;
     private final String[] languages;
     private final String[] extraTags;
+    private boolean failedSinceFlush = false;
 
     public Updater(Client esClient, String[] languages, String[] extraTags) {
         this.esClient = esClient;
@@ -31,6 +41,17 @@ public class Updater implements de.komoot.photon.Updater {
         esClient.admin().indices().prepareRefresh(PhotonIndex.NAME).get();
     }
 
+    @Override
+    public boolean flush() {
+        if (bulkRequest.numberOfActions() > 0) {
+            updateDocuments();
+        }
+
+        final boolean success = !failedSinceFlush;
+        failedSinceFlush = false;
+        return success;
+    }
+
     @Override
     public void create(PhotonDoc doc, int objectId) {
         String uid = doc.getUid(objectId);
@@ -38,6 +59,7 @@ public class Updater implements de.komoot.photon.Updater {
             bulkRequest.add(esClient.prepareIndex(PhotonIndex.NAME, PhotonIndex.TYPE).setSource(PhotonDocConverter.convert(doc, languages, extraTags)).setId(uid));
         } catch (IOException e) {
             LOGGER.error("Creation of new doc {} failed", uid, e);
+            failedSinceFlush = true;
         }
     }
 
@@ -49,6 +71,53 @@ public class Updater implements de.komoot.photon.Updater {
         return esClient.prepareGet(PhotonIndex.NAME, PhotonIndex.TYPE, makeUid(docId, objectId)).execute().actionGet().isExists();
     }
 
+    @Override
+    public void deleteSubsequent(Map<Long, Integer> firstObjectIds) {
+        Map<Long, Integer> todo = firstObjectIds;
+        while (!todo.isEmpty()) {
+            final MultiGetRequestBuilder request = esClient.prepareMultiGet();
+            for (var entry : todo.entrySet()) {
+                for (int i = 0; i < SUBSEQUENT_WINDOW; ++i) {
+                    request.add(new MultiGetRequest.Item(PhotonIndex.NAME, PhotonIndex.TYPE,
+                            makeUid(entry.getKey(), entry.getValue() + i))
+                            .fetchSourceContext(FetchSourceContext.DO_NOT_FETCH_SOURCE));
+                }
+            }
+
+            final MultiGetItemResponse[] docs;
+            try {
+                docs = request.execute().actionGet().getResponses();
+            } catch (ElasticsearchException e) {
+                // Left-over documents are not removed, so the changes need to be applied again.
+                LOGGER.error("Error on multi-get operation", e);
+                failedSinceFlush = true;
+                return;
+            }
+
+            final Map<Long, Integer> next = new LinkedHashMap<>();
+            int pos = 0;
+            for (var entry : todo.entrySet()) {
+                int objectId = entry.getValue();
+                boolean allFound = true;
+                for (int i = 0; i < SUBSEQUENT_WINDOW; ++i, ++pos) {
+                    if (allFound && docs[pos].isFailed()) {
+                        LOGGER.error("Error on multi-get operation: {}", docs[pos].getFailure().getMessage());
+                        failedSinceFlush = true;
+                    }
+                    if (allFound && !docs[pos].isFailed() && docs[pos].getResponse().isExists()) {
+                        delete(entry.getKey(), objectId++);
+                    } else {
+                        allFound = false;
+                    }
+                }
+                if (allFound) {
+                    next.put(entry.getKey(), objectId);
+                }
+            }
+            todo = next;
+        }
+    }
+
     private String makeUid(Long docId, int objectId) {
         if (objectId <= 0) {
             return String.valueOf(docId);
@@ -64,6 +133,7 @@ public class Updater implements de.komoot.photon.Updater {
         BulkResponse bulkResponse = bulkRequest.execute().actionGet();
         if (bulkResponse.hasFailures()) {
             LOGGER.error("Error while bulk update: {}", bulkResponse.buildFailureMessage());
+            failedSinceFlush = true;
         }
         this.bulkRequest = this.esClient.prepareBulk();
     }
@@ -12,12 +12,18 @@ import org.opensearch.client.json.jackson.JacksonJsonpMapper;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.HealthStatus;
 import org.opensearch.client.opensearch._types.OpenSearchException;
+import org.opensearch.client.opensearch.indices.update_aliases.Action;
 import org.opensearch.client.transport.httpclient5.ApacheHttpClient5TransportBuilder;
 import org.slf4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 public class Server {
     /**
@@ -37,9 +43,18 @@ public class Server {
             "org.opensearch.transport.Netty4Plugin,"
             + "org.opensearch.analysis.common.CommonAnalysisPlugin";
 
+    private static final DateTimeFormatter INDEX_VERSION_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS").withZone(ZoneOffset.UTC);
+
     protected OpenSearchClient client;
     private OpenSearchRunner runner = null;
     protected final String dataDirectory;
+    // Physical index new documents are imported into.
+    private String importIndexName = PhotonIndex.NAME;
+    private RefreshPolicy updateRefreshPolicy = RefreshPolicy.INDEX;
+    private String refreshInterval = "15s";
+    private int numReplicas = 1;
+    private SearchFallback searchFallback = SearchFallback.SEQUENTIAL;
 
     public Server(String mainDirectory) {
         dataDirectory = new File(mainDirectory, "photon_data").getAbsolutePath();
@@ -106,7 +121,29 @@ public class Server {
 
     public void refreshIndexes() throws IOException {
         waitForReady();
-        client.indices().refresh();
+        client.indices().refresh(r -> r.index(PhotonIndex.NAME));
+    }
+
+    /**
+     * Set how the index is refreshed.
+     *
+     * @param updateRefresh Refresh policy for updates: index, wait_for or none.
+     * @param refreshInterval Refresh interval of the index after an import.
+     * @param numReplicas Number of replicas of the index after an import.
+     */
+    public void setRefreshSettings(String updateRefresh, String refreshInterval, int numReplicas) {
+        this.updateRefreshPolicy = RefreshPolicy.fromString(updateRefresh);
+        this.refreshInterval = refreshInterval;
+        this.numReplicas = numReplicas;
+    }
+
+    /**
+     * Set when the lenient query of a forward search is sent.
+     *
+     * @param searchFallback Fallback mode: sequential, parallel or adaptive.
+     */
+    public void setSearchFallback(String searchFallback) {
+        this.searchFallback = SearchFallback.fromString(searchFallback);
     }
 
     public void shutdown() {
@@ -121,13 +158,104 @@ public class Server {
 
     public DatabaseProperties recreateIndex(String[] languages, Date importDate, boolean supportStructuredQueries) throws IOException {
         // delete any existing data
-        if (client.indices().exists(e -> e.index(PhotonIndex.NAME)).value()) {
+        if (client.indices().existsAlias(e -> e.name(PhotonIndex.NAME)).value()) {
+            final var aliased = getAliasedIndices();
+            client.indices().delete(d -> d.index(aliased));
+        } else if (client.indices().exists(e -> e.index(PhotonIndex.NAME)).value()) {
             client.indices().delete(d -> d.index(PhotonIndex.NAME));
         }
 
-        (new IndexSettingBuilder()).setShards(5).createIndex(client, PhotonIndex.NAME);
+        importIndexName = PhotonIndex.NAME;
+        return createIndex(languages, importDate, supportStructuredQueries);
+    }
 
-        (new IndexMapping(supportStructuredQueries)).addLanguages(languages).putMapping(client, PhotonIndex.NAME);
+    /**
+     * Create a new physical index for import, leaving the current index untouched.
+     *
+     * Importers created afterwards write into the new index. Call
+     * {@link #activateVersionedIndex(boolean)} once the import is finished to
+     * make the new index the one used for searching.
+     */
+    public DatabaseProperties createVersionedIndex(String[] languages, Date importDate, boolean supportStructuredQueries) throws IOException {
+        importIndexName = PhotonIndex.NAME + "_" + INDEX_VERSION_FORMAT.format(Instant.now());
+        LOGGER.info("Importing into new index '{}'.", importIndexName);
+
+        return createIndex(languages, importDate, supportStructuredQueries);
+    }
+
+    /**
+     * Switch the search alias to the index created with createVersionedIndex()
+     * and drop the previously active index.
+     */
+    public void activateVersionedIndex(boolean forceMerge) throws IOException {
+        final String newIndex = importIndexName;
+
+        client.indices().refresh(r -> r.index(newIndex));
+        if (forceMerge) {
+            LOGGER.info("Force-merging index '{}'.", newIndex);
+            client.indices().forcemerge(f -> f.index(newIndex).maxNumSegments(1L));
+        }
+        client.cluster().health(h -> h.index(newIndex).waitForStatus(HealthStatus.Yellow));
+
+        final List<String> oldIndices;
+        final boolean hasLegacyIndex;
+        if (client.indices().existsAlias(e -> e.name(PhotonIndex.NAME)).value()) {
+            oldIndices = getAliasedIndices();
+            hasLegacyIndex = false;
+        } else {
+            oldIndices = List.of();
+            hasLegacyIndex = client.indices().exists(e -> e.index(PhotonIndex.NAME)).value();
+        }
+
+        final List<Action> actions = new ArrayList<>();
+        actions.add(Action.of(a -> a.add(add -> add.index(newIndex).alias(PhotonIndex.NAME))));
+        for (String oldIndex : oldIndices) {
+            actions.add(Action.of(a -> a.remove(rm -> rm.index(oldIndex).alias(PhotonIndex.NAME))));
+        }
+        if (hasLegacyIndex) {
+            // An index with the name of the alias must go in the same step.
+            actions.add(Action.of(a -> a.removeIndex(rm -> rm.index(PhotonIndex.NAME))));
+        }
+        client.indices().updateAliases(u -> u.actions(actions));
+        LOGGER.info("Alias '{}' now points to index '{}'.", PhotonIndex.NAME, newIndex);
+
+        for (String oldIndex : oldIndices) {
+            if (!oldIndex.equals(newIndex)) {
+                LOGGER.info("Deleting old index '{}'.", oldIndex);
+                client.indices().delete(d -> d.index(oldIndex));
+            }
+        }
+
+        importIndexName = PhotonIndex.NAME;
+    }
+
+    /**
+     * Get the name of the physical index new documents are imported into.
+     */
+    public String getImportIndexName() {
+        return importIndexName;
+    }
+
+    /**
+     * Continue an interrupted import into the given existing index.
+     */
+    public DatabaseProperties resumeIndex(String indexName) throws IOException {
+        if (!client.indices().exists(e -> e.index(indexName)).value()) {
+            throw new UsageException("Cannot resume import: index '" + indexName + "' does not exist.");
+        }
+
+        importIndexName = indexName;
+        return loadFromDatabase(indexName);
+    }
+
+    private List<String> getAliasedIndices() throws IOException {
+        return new ArrayList<>(client.indices().getAlias(g -> g.name(PhotonIndex.NAME)).result().keySet());
+    }
+
+    private DatabaseProperties createIndex(String[] languages, Date importDate, boolean supportStructuredQueries) throws IOException {
+        (new IndexSettingBuilder()).setShards(5).createIndex(client, importIndexName);
+
+        (new IndexMapping(supportStructuredQueries)).addLanguages(languages).putMapping(client, importIndexName);
 
         var dbProperties = new DatabaseProperties(languages, importDate, supportStructuredQueries);
         saveToDatabase(dbProperties);
@@ -156,15 +284,19 @@ public class Server {
 
     public void saveToDatabase(DatabaseProperties dbProperties) throws IOException {
         client.index(r -> r
-                        .index(PhotonIndex.NAME)
+                        .index(importIndexName)
                         .id(PhotonIndex.PROPERTY_DOCUMENT_ID)
                         .document(new DBPropertyEntry(dbProperties, DATABASE_VERSION))
                         );
     }
 
     public DatabaseProperties loadFromDatabase() throws IOException {
+        return loadFromDatabase(PhotonIndex.NAME);
+    }
+
+    private DatabaseProperties loadFromDatabase(String indexName) throws IOException {
         var dbEntry = client.get(r -> r
-                .index(PhotonIndex.NAME)
+                .index(indexName)
                 .id(PhotonIndex.PROPERTY_DOCUMENT_ID),
                 DBPropertyEntry.class);
 
@@ -185,20 +317,44 @@ public class Server {
 
     public Importer createImporter(String[] languages, String[] extraTags) {
         registerPhotonDocSerializer(languages, extraTags);
-        return new de.komoot.photon.opensearch.Importer(client);
+        final var importer = new de.komoot.photon.opensearch.Importer(client, importIndexName);
+        importer.setIndexSettings(refreshInterval, numReplicas);
+        return importer;
+    }
+
+    /**
+     * Create an importer that writes a json dump.
+     *
+     * @param numShards Number of part files to write in parallel, 0 for a single file.
+     */
+    public static Importer createJsonDumper(String filename, int numShards, boolean compress,
+                                            String[] languages, String[] extraTags) throws IOException {
+        if (numShards > 0) {
+            return new ShardedJsonDumper(filename, numShards, compress, languages, extraTags);
+        }
+        return new JsonDumper(filename, languages, extraTags);
+    }
+
+    public long loadJsonDump(List<String> files, int numThreads, ImportStatistics statistics) throws IOException {
+        final var loader = new JsonDumpLoader(client, importIndexName, numThreads);
+        loader.setIndexSettings(refreshInterval, numReplicas);
+        loader.setStatistics(statistics);
+        return loader.load(files);
     }
 
     public Updater createUpdater(String[] languages, String[] extraTags) {
         registerPhotonDocSerializer(languages, extraTags);
-        return new de.komoot.photon.opensearch.Updater(client);
+        final var updater = new de.komoot.photon.opensearch.Updater(client);
+        updater.setRefreshPolicy(updateRefreshPolicy);
+        return updater;
     }
 
     public SearchHandler createSearchHandler(String[] languages, int queryTimeoutSec) {
-        return new OpenSearchSearchHandler(client, languages, queryTimeoutSec);
+        return new OpenSearchSearchHandler(client, languages, queryTimeoutSec, searchFallback);
     }
 
     public StructuredSearchHandler createStructuredSearchHandler(String[] languages, int queryTimeoutSec) {
-        return new OpenSearchStructuredSearchHandler(client, languages, queryTimeoutSec);
+        return new OpenSearchStructuredSearchHandler(client, languages, queryTimeoutSec, searchFallback);
     }
 
     public ReverseHandler createReverseHandler(int queryTimeoutSec) {
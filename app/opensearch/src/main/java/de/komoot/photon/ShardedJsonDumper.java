@@ -0,0 +1,225 @@
+package de.komoot.photon;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import de.komoot.photon.opensearch.PhotonDocSerializer;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Importer which writes the documents into multiple newline-delimited JSON files in parallel.
+ *
+ * Each part file is written by its own thread, so that serialization and
+ * compression are spread over multiple cores. Documents are distributed
+ * over the parts by place ID, so that all documents of a place end up in
+ * the same part. A manifest describing the parts is written at the end.
+ *
+ * When writing any of the parts fails, no manifest is written and
+ * {@link #finish()} reports the error.
+ */
+public class ShardedJsonDumper implements Importer {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(ShardedJsonDumper.class);
+
+    private static final int QUEUE_SIZE = 1000;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final String basename;
+    private final boolean compress;
+    private final String[] languages;
+    private final ObjectMapper mapper;
+    private final List<Shard> shards;
+
+    public ShardedJsonDumper(String basename, int numShards, boolean compress, String[] languages, String[] extraTags) throws IOException {
+        if ("-".equals(basename)) {
+            throw new UsageException("Sharded dumps cannot be written to stdout.");
+        }
+
+        this.basename = basename;
+        this.compress = compress;
+        this.languages = languages;
+
+        final var module = new SimpleModule("PhotonDocSerializer",
+                new Version(1, 0, 0, null, null, null));
+        module.addSerializer(PhotonDoc.class, new PhotonDocSerializer(languages, extraTags));
+
+        mapper = new ObjectMapper();
+        mapper.registerModule(module);
+
+        shards = new ArrayList<>(numShards);
+        for (int i = 0; i < numShards; ++i) {
+            shards.add(new Shard(String.format("%s.%04d.ndjson%s", basename, i, compress ? ".gz" : "")));
+        }
+        shards.forEach(s -> s.thread.start());
+    }
+
+    @Override
+    public void add(PhotonDoc doc, int objectId) {
+        shards.get((int) Math.floorMod(doc.getPlaceId(), (long) shards.size())).put(new DumpItem(doc, objectId));
+    }
+
+    @Override
+    public void finish() {
+        for (Shard shard : shards) {
+            shard.put(DumpItem.FINAL);
+        }
+
+        for (Shard shard : shards) {
+            while (true) {
+                try {
+                    shard.thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    LOGGER.warn("Thread interrupted while waiting for dump writer.");
+                    // Restore interrupted state.
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        for (Shard shard : shards) {
+            if (shard.failure != null) {
+                throw new UsageException("Cannot write json dump file " + shard.filename + ": " + shard.failure.getMessage());
+            }
+        }
+
+        writeManifest();
+    }
+
+    private void writeManifest() {
+        final List<Map<String, Object>> parts = new ArrayList<>();
+        for (Shard shard : shards) {
+            final Map<String, Object> part = new LinkedHashMap<>();
+            part.put("file", new File(shard.filename).getName());
+            part.put("documents", shard.numDocuments);
+            parts.add(part);
+        }
+
+        final Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("id", "Photon Dump Manifest");
+        manifest.put("version", PhotonDocSerializer.FORMAT_VERSION);
+        manifest.put("compression", compress ? "gzip" : "none");
+        manifest.put("languages", languages);
+        manifest.put("parts", parts);
+
+        try {
+            mapper.writerWithDefaultPrettyPrinter().writeValue(new File(basename + ".manifest.json"), manifest);
+        } catch (IOException e) {
+            throw new UsageException("Cannot write json dump manifest: " + e.getMessage());
+        }
+    }
+
+    private static class DumpItem {
+        static final DumpItem FINAL = new DumpItem(null, 0);
+
+        final PhotonDoc doc;
+        final int objectId;
+
+        DumpItem(PhotonDoc doc, int objectId) {
+            this.doc = doc;
+            this.objectId = objectId;
+        }
+    }
+
+    private class Shard implements Runnable {
+        private final String filename;
+        private final BlockingQueue<DumpItem> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        private final OutputStream out;
+        private final Thread thread;
+        private long numDocuments = 0;
+        private volatile Exception failure = null;
+
+        Shard(String filename) throws IOException {
+            this.filename = filename;
+            final OutputStream file = new FileOutputStream(filename);
+            this.out = compress ? new GZIPOutputStream(file, BUFFER_SIZE) : new BufferedOutputStream(file, BUFFER_SIZE);
+            this.thread = new Thread(this, "json-dump-" + new File(filename).getName());
+        }
+
+        void put(DumpItem item) {
+            while (true) {
+                try {
+                    queue.put(item);
+                    break;
+                } catch (InterruptedException e) {
+                    LOGGER.warn("Thread interrupted while placing document in queue.");
+                    // Restore interrupted state.
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                try (JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+                    generator.setRootValueSeparator(new SerializedString("\n"));
+
+                    generator.writeStartObject();
+                    generator.writeObjectField("id", "Photon Dump Header");
+                    generator.writeObjectField("version", PhotonDocSerializer.FORMAT_VERSION);
+                    generator.writeEndObject();
+
+                    while (true) {
+                        final DumpItem item = queue.take();
+                        if (item == DumpItem.FINAL) {
+                            break;
+                        }
+
+                        generator.writeStartObject();
+                        generator.writeObjectField("id", item.doc.getUid(item.objectId));
+                        generator.writeObjectField("document", item.doc);
+                        generator.writeEndObject();
+                        ++numDocuments;
+                    }
+
+                    generator.writeRaw('\n');
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Error writing json file {}", filename, e);
+                failure = e;
+                drainQueue();
+            } catch (InterruptedException e) {
+                LOGGER.info("Interrupted exception", e);
+                failure = e;
+                // Restore interrupted state.
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Error while closing output file", e);
+                }
+            }
+        }
+
+        /**
+         * Throw away remaining documents after an error, so that
+         * the producer does not block forever.
+         */
+        private void drainQueue() {
+            try {
+                while (queue.take() != DumpItem.FINAL) {
+                    // skip
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package de.komoot.photon.opensearch;
 
+import de.komoot.photon.ImportStatistics;
 import de.komoot.photon.PhotonDoc;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.Time;
@@ -12,19 +13,42 @@ public class Importer implements de.komoot.photon.Importer {
     private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(Importer.class);
 
     private final OpenSearchClient client;
+    private final String indexName;
     private BulkRequest.Builder bulkRequest = new BulkRequest.Builder();
     private int todoDocuments = 0;
+    private boolean failedSinceFlush = false;
+    private ImportStatistics statistics = new ImportStatistics();
+    private String refreshInterval = "15s";
+    private int numReplicas = 1;
 
     public Importer(OpenSearchClient client) {
+        this(client, PhotonIndex.NAME);
+    }
+
+    public Importer(OpenSearchClient client, String indexName) {
         this.client = client;
-        enableImportSettings(true);
+        this.indexName = indexName;
+        enableImportSettings(client, indexName);
+    }
+
+    /**
+     * Set the index settings to restore when the import is finished.
+     */
+    public void setIndexSettings(String refreshInterval, int numReplicas) {
+        this.refreshInterval = refreshInterval;
+        this.numReplicas = numReplicas;
+    }
+
+    @Override
+    public void setStatistics(ImportStatistics statistics) {
+        this.statistics = statistics;
     }
 
     @Override
     public void add(PhotonDoc doc, int objectId) {
         bulkRequest.operations(op -> op
                 .index(i -> i
-                        .index(PhotonIndex.NAME)
+                        .index(indexName)
                         .id(doc.getUid(objectId))
                         .document(doc)));
         ++todoDocuments;
@@ -34,16 +58,27 @@ public class Importer implements de.komoot.photon.Importer {
         }
     }
 
+    @Override
+    public boolean flush() {
+        if (todoDocuments > 0) {
+            saveDocuments();
+        }
+
+        final boolean success = !failedSinceFlush;
+        failedSinceFlush = false;
+        return success;
+    }
+
     @Override
     public void finish() {
         if (todoDocuments > 0) {
             saveDocuments();
         }
 
-        enableImportSettings(false);
+        disableImportSettings(client, indexName, refreshInterval, numReplicas);
 
         try {
-            client.indices().refresh();
+            client.indices().refresh(r -> r.index(indexName));
         } catch (IOException e) {
             LOGGER.warn("Refresh of database failed", e);
         }
@@ -51,29 +86,48 @@ public class Importer implements de.komoot.photon.Importer {
 
     private void saveDocuments() {
         try {
+            final long startMillis = System.currentTimeMillis();
             var response = client.bulk(bulkRequest.build());
 
+            int numRejected = 0;
             if (response.errors()) {
                 LOGGER.error("Error during bulk import.");
+                numRejected = (int) response.items().stream().filter(item -> item.error() != null).count();
+                failedSinceFlush = true;
             }
+            statistics.addBulkRequest(todoDocuments, numRejected, System.currentTimeMillis() - startMillis);
         } catch (IOException e) {
             LOGGER.error("Error during bulk import", e);
+            failedSinceFlush = true;
         }
 
         bulkRequest = new BulkRequest.Builder();
         todoDocuments = 0;
     }
 
-    private void enableImportSettings(boolean enable) {
+    /**
+     * Switch off refreshing and replication for the duration of a bulk import.
+     */
+    static void enableImportSettings(OpenSearchClient client, String indexName) {
+        putIndexSettings(client, indexName, "-1", 0);
+    }
+
+    /**
+     * Restore the settings for normal operation after a bulk import.
+     */
+    static void disableImportSettings(OpenSearchClient client, String indexName, String refreshInterval, int numReplicas) {
+        putIndexSettings(client, indexName, refreshInterval, numReplicas);
+    }
+
+    private static void putIndexSettings(OpenSearchClient client, String indexName, String refreshInterval, int numReplicas) {
         try {
             client.indices().putSettings(s -> s
-                    .index(PhotonIndex.NAME)
+                    .index(indexName)
                     .settings(is -> is
-                            .refreshInterval(Time.of(t -> t.time(enable ? "-1" : "15s")))
-                            .numberOfReplicas(enable ? "0" : "1")));
+                            .refreshInterval(Time.of(t -> t.time(refreshInterval)))
+                            .numberOfReplicas(String.valueOf(numReplicas))));
         } catch (IOException e) {
             LOGGER.warn("IO error while setting refresh interval", e);
         }
-
     }
 }
@@ -0,0 +1,345 @@
+package de.komoot.photon.opensearch;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.komoot.photon.ImportStatistics;
+import de.komoot.photon.UsageException;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Loads documents from Photon JSON dumps into the database.
+ *
+ * The dump files are parsed in parallel with a streaming parser. The
+ * documents are not deserialized, their JSON text is forwarded verbatim
+ * to a pool of threads sending bulk requests to the database.
+ */
+public class JsonDumpLoader {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(JsonDumpLoader.class);
+
+    private static final String HEADER_ID = "Photon Dump Header";
+    private static final String MANIFEST_SUFFIX = ".manifest.json";
+    private static final int BULK_SIZE = 10000;
+    private static final List<RawJsonDocument> FINAL_BATCH = new ArrayList<>();
+
+    private final OpenSearchClient client;
+    private final String indexName;
+    private final int numThreads;
+    private final JsonFactory factory = new JsonFactory();
+    private final LongAdder documentsLoaded = new LongAdder();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private ImportStatistics statistics = new ImportStatistics();
+    private String refreshInterval = "15s";
+    private int numReplicas = 1;
+
+    public JsonDumpLoader(OpenSearchClient client, String indexName, int numThreads) {
+        this.client = client;
+        this.indexName = indexName;
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    public void setStatistics(ImportStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Set the index settings to restore when loading is finished.
+     */
+    public void setIndexSettings(String refreshInterval, int numReplicas) {
+        this.refreshInterval = refreshInterval;
+        this.numReplicas = numReplicas;
+    }
+
+    /**
+     * Load the given dump files into the database.
+     *
+     * @param files List of dump files. Files may be gzip-compressed (ending '.gz').
+     *              When a manifest of a sharded dump is given, all its parts are loaded.
+     *
+     * @return Number of documents loaded.
+     */
+    public long load(List<String> files) throws IOException {
+        final Queue<Path> todolist = new ConcurrentLinkedQueue<>(expandManifests(files));
+        final BlockingQueue<List<RawJsonDocument>> batches = new ArrayBlockingQueue<>(2 * numThreads);
+
+        Importer.enableImportSettings(client, indexName);
+
+        final List<Thread> writerThreads = new ArrayList<>(numThreads);
+        for (int i = 0; i < numThreads; ++i) {
+            writerThreads.add(startThread("json-load-bulk-" + i, () -> writeBatches(batches)));
+        }
+
+        final int numReaders = Math.min(numThreads, todolist.size());
+        final List<Thread> readerThreads = new ArrayList<>(numReaders);
+        for (int i = 0; i < numReaders; ++i) {
+            readerThreads.add(startThread("json-load-reader-" + i, () -> {
+                Path next = todolist.poll();
+                while (next != null && failure.get() == null) {
+                    readFile(next, batches, writerThreads);
+                    next = todolist.poll();
+                }
+            }));
+        }
+
+        readerThreads.forEach(JsonDumpLoader::join);
+        writerThreads.forEach(t -> put(batches, FINAL_BATCH, writerThreads));
+        writerThreads.forEach(JsonDumpLoader::join);
+
+        Importer.disableImportSettings(client, indexName, refreshInterval, numReplicas);
+        client.indices().refresh(r -> r.index(indexName));
+
+        if (failure.get() != null) {
+            throw new UsageException("Cannot load json dump: " + failure.get().getMessage());
+        }
+
+        return documentsLoaded.sum();
+    }
+
+    private List<Path> expandManifests(List<String> files) throws IOException {
+        final List<Path> paths = new ArrayList<>();
+        for (String file : files) {
+            final Path path = Path.of(file);
+            if (file.endsWith(MANIFEST_SUFFIX)) {
+                final JsonNode manifest = new ObjectMapper().readTree(path.toFile());
+                checkVersion(manifest.path("version").asText(), path);
+                for (JsonNode part : manifest.path("parts")) {
+                    paths.add(path.resolveSibling(part.path("file").asText()));
+                }
+            } else {
+                paths.add(path);
+            }
+        }
+
+        for (Path path : paths) {
+            if (!Files.isReadable(path)) {
+                throw new UsageException("Cannot read json dump file " + path);
+            }
+        }
+
+        return paths;
+    }
+
+    private void readFile(Path path, BlockingQueue<List<RawJsonDocument>> batches, List<Thread> writers) {
+        LOGGER.info("Reading json dump {}", path);
+        try (InputStream in = openFile(path); JsonParser parser = factory.createParser(in)) {
+            readHeader(parser, path);
+
+            List<RawJsonDocument> batch = new ArrayList<>(BULK_SIZE);
+            JsonToken token = parser.nextToken();
+            while (token == JsonToken.START_OBJECT) {
+                batch.add(readEntry(parser, path));
+                if (batch.size() >= BULK_SIZE) {
+                    put(batches, batch, writers);
+                    batch = new ArrayList<>(BULK_SIZE);
+                }
+                token = parser.nextToken();
+            }
+
+            if (token != null) {
+                throw new IOException("Unexpected " + token + " at " + parser.getCurrentLocation());
+            }
+
+            if (!batch.isEmpty()) {
+                put(batches, batch, writers);
+            }
+        } catch (IOException | UsageException e) {
+            LOGGER.error("Error reading json dump {}", path, e);
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private InputStream openFile(Path path) throws IOException {
+        final InputStream in = Files.newInputStream(path);
+        if (path.toString().endsWith(".gz")) {
+            return new GZIPInputStream(in, 1 << 16);
+        }
+        return new BufferedInputStream(in, 1 << 16);
+    }
+
+    private void readHeader(JsonParser parser, Path path) throws IOException {
+        String id = null;
+        String version = null;
+        if (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("id".equals(field)) {
+                    id = parser.getText();
+                } else if ("version".equals(field)) {
+                    version = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        if (!HEADER_ID.equals(id)) {
+            throw new UsageException("File " + path + " is not a Photon json dump.");
+        }
+        checkVersion(version, path);
+    }
+
+    private void checkVersion(String version, Path path) {
+        if (!PhotonDocSerializer.FORMAT_VERSION.equals(version)) {
+            throw new UsageException("Json dump " + path + " has incompatible format version '" + version
+                    + "'. Expected: " + PhotonDocSerializer.FORMAT_VERSION);
+        }
+    }
+
+    private RawJsonDocument readEntry(JsonParser parser, Path path) throws IOException {
+        String id = null;
+        String document = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("id".equals(field)) {
+                id = parser.getText();
+            } else if ("document".equals(field)) {
+                final StringWriter writer = new StringWriter(1024);
+                try (JsonGenerator generator = factory.createGenerator(writer)) {
+                    generator.copyCurrentStructure(parser);
+                }
+                document = writer.toString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (id == null || document == null) {
+            throw new IOException("Incomplete document in " + path + " at " + parser.getCurrentLocation());
+        }
+
+        return new RawJsonDocument(id, document);
+    }
+
+    private void writeBatches(BlockingQueue<List<RawJsonDocument>> batches) {
+        while (true) {
+            final List<RawJsonDocument> batch;
+            try {
+                batch = batches.take();
+            } catch (InterruptedException e) {
+                LOGGER.info("Interrupted exception", e);
+                // Restore interrupted state.
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (batch == FINAL_BATCH) {
+                return;
+            }
+
+            // After an error, keep consuming so that the readers do not block.
+            if (failure.get() == null) {
+                try {
+                    writeBatch(batch);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error during bulk import", e);
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+    }
+
+    private void writeBatch(List<RawJsonDocument> batch) {
+        final var bulkRequest = new BulkRequest.Builder();
+        for (RawJsonDocument doc : batch) {
+            bulkRequest.operations(op -> op
+                    .index(i -> i
+                            .index(indexName)
+                            .id(doc.getId())
+                            .document(doc)));
+        }
+
+        try {
+            final long startMillis = System.currentTimeMillis();
+            var response = client.bulk(bulkRequest.build());
+
+            int numRejected = 0;
+            if (response.errors()) {
+                LOGGER.error("Error during bulk import.");
+                final var rejected = response.items().stream().filter(item -> item.error() != null)
+                        .collect(Collectors.toList());
+                numRejected = rejected.size();
+                if (!rejected.isEmpty()) {
+                    final var item = rejected.get(0);
+                    // Documents are missing, abort so that an incomplete index is never activated.
+                    failure.compareAndSet(null, new IOException(numRejected + " documents rejected, first error for '"
+                            + item.id() + "': " + item.error().reason()));
+                }
+            }
+            statistics.addBulkRequest(batch.size(), numRejected, System.currentTimeMillis() - startMillis);
+            documentsLoaded.add(batch.size() - numRejected);
+        } catch (IOException e) {
+            LOGGER.error("Error during bulk import", e);
+            // The batch is lost, abort so that an incomplete index is never activated.
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private static Thread startThread(String name, Runnable runnable) {
+        final Thread thread = new Thread(runnable, name);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Hand a batch to the writer threads.
+     *
+     * When all writers have stopped, the queue is cleared and the batch
+     * dropped, so that the caller never blocks forever.
+     */
+    private void put(BlockingQueue<List<RawJsonDocument>> queue, List<RawJsonDocument> batch, List<Thread> writers) {
+        while (true) {
+            try {
+                if (queue.offer(batch, 1, TimeUnit.SECONDS)) {
+                    break;
+                }
+                if (writers.stream().noneMatch(Thread::isAlive)) {
+                    failure.compareAndSet(null, new IOException("All bulk writers have stopped."));
+                    queue.clear();
+                    break;
+                }
+            } catch (InterruptedException e) {
+                LOGGER.warn("Thread interrupted while placing batch in queue.");
+                // Restore interrupted state.
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void join(Thread thread) {
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                LOGGER.warn("Thread interrupted:", e);
+                // Restore interrupted state.
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1,24 +1,59 @@
 package de.komoot.photon.opensearch;
 
+import de.komoot.photon.Constants;
 import de.komoot.photon.searcher.PhotonResult;
 import org.json.JSONObject;
 
+import java.util.HashMap;
 import java.util.Map;
 
 public class OpenSearchResult implements PhotonResult {
-    private static final String[] NAME_PRECEDENCE = {"default", "housename", "int", "loc", "reg", "alt", "old"};
+    static final String[] NAME_PRECEDENCE = {"default", "housename", "int", "loc", "reg", "alt", "old"};
+
+    // Plain fields of a document, values are kept in an array in this order.
+    static final String[] INFO_FIELDS = {Constants.OSM_ID, Constants.OSM_TYPE, Constants.OSM_KEY, Constants.OSM_VALUE,
+            Constants.OBJECT_TYPE, Constants.IMPORTANCE, Constants.CLASSIFICATION, Constants.HOUSENUMBER,
+            Constants.POSTCODE, Constants.COUNTRYCODE};
+    // Fields with a map of values, values are kept in an array in this order.
+    static final String[] MAP_FIELDS = {Constants.NAME, Constants.COUNTRY, Constants.CITY, Constants.DISTRICT,
+            Constants.LOCALITY, Constants.STREET, Constants.STATE, Constants.COUNTY, "extra"};
+
+    private static final Map<String, Integer> INFO_INDEX = buildIndex(INFO_FIELDS);
+    private static final Map<String, Integer> MAP_INDEX = buildIndex(MAP_FIELDS);
 
     private double score = 0.0;
     private final double[] extent;
     private final double[] coordinates;
-    private final Map<String, Object> infos;
-    private final Map<String, Map<String, String>> localeTags;
-
-    OpenSearchResult(double[] extent, double[] coordinates, Map<String, Object> infos, Map<String, Map<String, String>> localeTags) {
+    private final Object[] infos;
+    private final Map<String, String>[] localeTags;
+    // Fields not needed for a response, only set when the full source was fetched.
+    private final Map<String, Object> otherInfos;
+    private final Map<String, Map<String, String>> otherLocaleTags;
+
+    OpenSearchResult(double[] extent, double[] coordinates, Object[] infos, Map<String, String>[] localeTags,
+                     Map<String, Object> otherInfos, Map<String, Map<String, String>> otherLocaleTags) {
         this.extent = extent;
         this.coordinates = coordinates;
         this.infos = infos;
         this.localeTags = localeTags;
+        this.otherInfos = otherInfos;
+        this.otherLocaleTags = otherLocaleTags;
+    }
+
+    /**
+     * Return the position of the field in the info array or -1 if the
+     * field is not kept.
+     */
+    static int infoIndex(String key) {
+        return INFO_INDEX.getOrDefault(key, -1);
+    }
+
+    /**
+     * Return the position of the field in the map array or -1 if the
+     * field is not kept.
+     */
+    static int mapIndex(String key) {
+        return MAP_INDEX.getOrDefault(key, -1);
     }
 
     public OpenSearchResult setScore(double score) {
@@ -28,7 +63,8 @@ public class OpenSearchResult implements PhotonResult {
 
     @Override
     public Object get(String key) {
-        return infos.get(key);
+        final int idx = infoIndex(key);
+        return idx < 0 ? null : infos[idx];
     }
 
     @Override
@@ -53,7 +89,8 @@ public class OpenSearchResult implements PhotonResult {
 
     @Override
     public Map<String, String> getMap(String key) {
-        return localeTags.get(key);
+        final int idx = mapIndex(key);
+        return idx < 0 ? null : localeTags[idx];
     }
 
     @Override
@@ -73,9 +110,31 @@ public class OpenSearchResult implements PhotonResult {
 
     @Override
     public JSONObject getRawData() {
+        final JSONObject infoJson = otherInfos == null ? new JSONObject() : new JSONObject(otherInfos);
+        for (int i = 0; i < INFO_FIELDS.length; ++i) {
+            if (infos[i] != null) {
+                infoJson.put(INFO_FIELDS[i], infos[i]);
+            }
+        }
+
+        final JSONObject localeJson = otherLocaleTags == null ? new JSONObject() : new JSONObject(otherLocaleTags);
+        for (int i = 0; i < MAP_FIELDS.length; ++i) {
+            if (localeTags[i] != null) {
+                localeJson.put(MAP_FIELDS[i], new JSONObject(localeTags[i]));
+            }
+        }
+
         return new JSONObject()
-                .put("infos", new JSONObject(infos))
-                .put("localeTags", new JSONObject(localeTags))
+                .put("infos", infoJson)
+                .put("localeTags", localeJson)
                 .put("score", score);
     }
+
+    private static Map<String, Integer> buildIndex(String[] fields) {
+        final Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < fields.length; ++i) {
+            index.put(fields[i], i);
+        }
+        return index;
+    }
 }
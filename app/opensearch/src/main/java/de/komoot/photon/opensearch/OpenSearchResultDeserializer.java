@@ -1,11 +1,9 @@
 package de.komoot.photon.opensearch;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.komoot.photon.Constants;
 import de.komoot.photon.searcher.PhotonResult;
 
@@ -13,70 +11,158 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Reads the source of a document directly from the token stream.
+ *
+ * Which languages and fields arrive here is decided by the source filter
+ * of the request (see {@link ResultSourceFilter}). Everything received is
+ * kept: fields used in a response go into the compact result structure,
+ * any other fields are only present for debug requests and are kept as raw
+ * data for inspection.
+ */
 public class OpenSearchResultDeserializer extends StdDeserializer<OpenSearchResult> {
-
     public OpenSearchResultDeserializer() {
         super(OpenSearchResult.class);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public OpenSearchResult deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
-        final var node = (ObjectNode) p.getCodec().readTree(p);
+        double[] extent = null;
+        double[] coordinates = PhotonResult.INVALID_COORDINATES;
+        final Object[] infos = new Object[OpenSearchResult.INFO_FIELDS.length];
+        final Map<String, String>[] localeTags = new Map[OpenSearchResult.MAP_FIELDS.length];
+        Map<String, Object> otherInfos = null;
+        Map<String, Map<String, String>> otherLocaleTags = null;
 
-        final double[] extent = extractExtent((ObjectNode) node.get("extent"));
-        final double[] coordinates = extractCoordinate((ObjectNode) node.get("coordinate"));
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
 
-        final Map<String, Object> tags = new HashMap<>();
-        final Map<String, Map<String, String>> localeTags = new HashMap<>();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            final String key = p.currentName();
+            token = p.nextToken();
 
-        var fields = node.fields();
-        while (fields.hasNext()) {
-            final var entry = fields.next();
-            final String key = entry.getKey();
-            final JsonNode value = entry.getValue();
-            if (value.isTextual()) {
-                tags.put(key, value.asText());
-            } else if (value.isInt()) {
-                tags.put(entry.getKey(), value.asInt());
-            } else if (value.isLong()) {
-                tags.put(entry.getKey(), value.asLong());
-            } else if (value.isFloatingPointNumber()) {
-                tags.put(entry.getKey(), value.asDouble());
-            } else if (value.isObject()) {
-                Map<String, String> vtags = new HashMap<>();
-                var subfields = value.fields();
-                while (subfields.hasNext()) {
-                    final var subentry = subfields.next();
-                    if (subentry.getValue().isTextual()) {
-                        vtags.put(subentry.getKey(), subentry.getValue().asText());
+            if (token == JsonToken.START_OBJECT) {
+                if ("coordinate".equals(key)) {
+                    coordinates = readCoordinate(p);
+                } else if ("extent".equals(key)) {
+                    extent = readExtent(p);
+                } else {
+                    final int idx = OpenSearchResult.mapIndex(key);
+                    if (idx >= 0) {
+                        localeTags[idx] = readStringMap(p);
+                    } else {
+                        final Map<String, String> values = readStringMap(p);
+                        if (!values.isEmpty()) {
+                            if (otherLocaleTags == null) {
+                                otherLocaleTags = new HashMap<>();
+                            }
+                            otherLocaleTags.put(key, values);
+                        }
+                    }
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                p.skipChildren();
+            } else {
+                final int idx = OpenSearchResult.infoIndex(key);
+                if (idx >= 0) {
+                    infos[idx] = readScalar(p, token);
+                } else {
+                    final Object value = readScalar(p, token);
+                    if (value != null) {
+                        if (otherInfos == null) {
+                            otherInfos = new HashMap<>();
+                        }
+                        otherInfos.put(key, value);
                     }
-                    localeTags.put(key, vtags);
                 }
             }
         }
 
-        return new OpenSearchResult(extent, coordinates, tags, localeTags);
+        return new OpenSearchResult(extent, coordinates, infos, localeTags, otherInfos, otherLocaleTags);
     }
 
-    private double[] extractExtent(ObjectNode node) {
-        if (node == null || !node.has("coordinates")) {
-            return null;
+    private static Object readScalar(JsonParser p, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return p.getText();
+            case VALUE_NUMBER_INT:
+                switch (p.getNumberType()) {
+                    case INT:
+                        return p.getIntValue();
+                    case LONG:
+                        return p.getLongValue();
+                    default:
+                        return null;
+                }
+            case VALUE_NUMBER_FLOAT:
+                return p.getDoubleValue();
+            default:
+                return null;
         }
-
-        final var coords = ((ArrayNode) node.get("coordinates"));
-        final var nw = ((ArrayNode) coords.get(0));
-        final var se = ((ArrayNode) coords.get(1));
-
-        return new double[]{nw.get(0).doubleValue(), nw.get(1).doubleValue(),
-                            se.get(0).doubleValue(), se.get(1).doubleValue()};
     }
 
-    private double[] extractCoordinate(ObjectNode node) {
-        if (node == null) {
-            return PhotonResult.INVALID_COORDINATES;
+    private static Map<String, String> readStringMap(JsonParser p) throws IOException {
+        final Map<String, String> values = new HashMap<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = p.currentName();
+            final JsonToken token = p.nextToken();
+            if (token == JsonToken.VALUE_STRING) {
+                values.put(key, p.getText());
+            } else {
+                p.skipChildren();
+            }
         }
+        return values;
+    }
 
-        return new double[]{node.get(Constants.LON).doubleValue(), node.get(Constants.LAT).doubleValue()};
+    private static double[] readCoordinate(JsonParser p) throws IOException {
+        double lon = Double.NaN;
+        double lat = Double.NaN;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = p.currentName();
+            p.nextToken();
+            if (Constants.LON.equals(key)) {
+                lon = p.getValueAsDouble();
+            } else if (Constants.LAT.equals(key)) {
+                lat = p.getValueAsDouble();
+            } else {
+                p.skipChildren();
+            }
+        }
+        return new double[]{lon, lat};
     }
 
+    /**
+     * Read an envelope in the form {"coordinates": [[nwLon, nwLat], [seLon, seLat]]}.
+     */
+    private static double[] readExtent(JsonParser p) throws IOException {
+        double[] extent = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = p.currentName();
+            final JsonToken token = p.nextToken();
+            if ("coordinates".equals(key) && token == JsonToken.START_ARRAY) {
+                extent = new double[4];
+                int i = 0;
+                int depth = 1;
+                while (depth > 0) {
+                    final JsonToken inner = p.nextToken();
+                    if (inner == JsonToken.START_ARRAY) {
+                        ++depth;
+                    } else if (inner == JsonToken.END_ARRAY) {
+                        --depth;
+                    } else if (inner != null && inner.isNumeric() && i < 4) {
+                        extent[i++] = p.getDoubleValue();
+                    } else if (inner == null) {
+                        break;
+                    }
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        return extent;
+    }
 }
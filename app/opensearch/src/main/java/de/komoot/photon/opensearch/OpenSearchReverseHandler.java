@@ -1,14 +1,19 @@
 package de.komoot.photon.opensearch;
 
 import de.komoot.photon.query.ReverseRequest;
+import de.komoot.photon.searcher.FailedResults;
 import de.komoot.photon.searcher.PhotonResult;
 import de.komoot.photon.searcher.ReverseHandler;
 import org.locationtech.jts.geom.Point;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.SearchType;
 import org.opensearch.client.opensearch._types.SortOrder;
+import org.opensearch.client.opensearch._types.SortOptions;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.MsearchRequest;
 import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.msearch.MultiSearchResponseItem;
+import org.opensearch.client.opensearch.core.search.SourceConfig;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -25,13 +30,10 @@ public class OpenSearchReverseHandler implements ReverseHandler {
 
     @Override
     public List<PhotonResult> reverse(ReverseRequest request) {
-        final var queryBuilder = new ReverseQueryBuilder(request.getLocation(), request.getRadius(), request.getQueryStringFilter(), request.getLayerFilters())
-                .withOsmTagFilters(request.getOsmTagFilters());
-
-
-        final var results = search(queryBuilder.buildQuery(),
+        final var results = search(buildQuery(request),
                 request.getLimit(),
-                request.getLocationDistanceSort() ? request.getLocation() : null);
+                request.getLocationDistanceSort() ? request.getLocation() : null,
+                ResultSourceFilter.forRequest(request.getLanguage(), request.getDebug()));
 
         final List<PhotonResult> ret = new ArrayList<>();
         for (var hit : results.hits().hits()) {
@@ -41,26 +43,90 @@ public class OpenSearchReverseHandler implements ReverseHandler {
         return ret;
     }
 
+    /**
+     * Run all requests with a single multi-search request.
+     *
+     * A request which fails does not stop the others, it gets a
+     * {@link FailedResults} instead.
+     */
+    @Override
+    public List<List<PhotonResult>> reverseBatch(List<ReverseRequest> requests) {
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        final var msearch = new MsearchRequest.Builder().index(PhotonIndex.NAME);
+        for (ReverseRequest request : requests) {
+            final Query query = buildQuery(request);
+            final SourceConfig source = ResultSourceFilter.forRequest(request.getLanguage(), request.getDebug());
+            msearch.searches(s -> s
+                    .header(h -> h.searchType(SearchType.QueryThenFetch))
+                    .body(b -> {
+                        b.query(query)
+                                .size(request.getLimit())
+                                .source(source)
+                                .timeout(queryTimeout);
+                        if (request.getLocationDistanceSort()) {
+                            b.sort(distanceSort(request.getLocation()));
+                        }
+                        return b;
+                    }));
+        }
+
+        final List<MultiSearchResponseItem<OpenSearchResult>> responses;
+        try {
+            responses = client.msearch(msearch.build(), OpenSearchResult.class).responses();
+        } catch (IOException e) {
+            throw new RuntimeException("IO error during search", e);
+        }
+
+        final List<List<PhotonResult>> ret = new ArrayList<>(responses.size());
+        for (var response : responses) {
+            if (response.isFailure()) {
+                ret.add(new FailedResults("Error during search: " + response.failure().error().reason()));
+                continue;
+            }
+            final List<PhotonResult> results = new ArrayList<>();
+            for (var hit : response.result().hits().hits()) {
+                results.add(hit.source());
+            }
+            ret.add(results);
+        }
+
+        return ret;
+    }
+
     @Override
     public String dumpQuery(ReverseRequest photonRequest) {
         return "{}";
     }
 
-    private SearchResponse<OpenSearchResult> search(Query query, int limit, Point location) {
+    private Query buildQuery(ReverseRequest request) {
+        return new ReverseQueryBuilder(request.getLocation(), request.getRadius(), request.getQueryStringFilter(), request.getLayerFilters())
+                .withOsmTagFilters(request.getOsmTagFilters())
+                .buildQuery();
+    }
+
+    private static SortOptions distanceSort(Point location) {
+        return SortOptions.of(sq -> sq
+                .geoDistance(gd -> gd
+                        .field("coordinate")
+                        .location(l -> l.latlon(ll -> ll.lat(location.getY()).lon(location.getX())))
+                        .order(SortOrder.Asc)));
+    }
+
+    private SearchResponse<OpenSearchResult> search(Query query, int limit, Point location, SourceConfig source) {
         try {
             return client.search(s -> {
                 s.index(PhotonIndex.NAME)
                         .searchType(SearchType.QueryThenFetch)
                         .query(query)
                         .size(limit)
+                        .source(source)
                         .timeout(queryTimeout);
 
                 if (location != null) {
-                    s.sort(sq -> sq
-                            .geoDistance(gd -> gd
-                                    .field("coordinate")
-                                    .location(l -> l.latlon(ll -> ll.lat(location.getY()).lon(location.getX())))
-                                    .order(SortOrder.Asc)));
+                    s.sort(distanceSort(location));
                 }
                 return s;
             }, OpenSearchResult.class);
@@ -1,12 +1,17 @@
 package de.komoot.photon.opensearch;
 
 import de.komoot.photon.query.PhotonRequest;
+import de.komoot.photon.searcher.FailedResults;
 import de.komoot.photon.searcher.PhotonResult;
 import de.komoot.photon.searcher.SearchHandler;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.SearchType;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.MsearchRequest;
 import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.msearch.MultiSearchResponseItem;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.opensearch.client.opensearch.core.search.SourceConfig;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -16,30 +21,106 @@ public class OpenSearchSearchHandler implements SearchHandler {
     private final OpenSearchClient client;
     private final String[] supportedLanguages;
     private final String queryTimeout;
+    private final SearchFallback fallback;
+    private final StrictMissPredictor missPredictor;
 
     public OpenSearchSearchHandler(OpenSearchClient client, String[] supportedLanguages, int queryTimeout) {
+        this(client, supportedLanguages, queryTimeout, SearchFallback.SEQUENTIAL);
+    }
+
+    public OpenSearchSearchHandler(OpenSearchClient client, String[] supportedLanguages, int queryTimeout,
+                                   SearchFallback fallback) {
         this.client = client;
         this.supportedLanguages = supportedLanguages;
         this.queryTimeout = queryTimeout + "s";
+        this.fallback = fallback;
+        this.missPredictor = fallback == SearchFallback.ADAPTIVE ? new StrictMissPredictor() : null;
     }
 
     @Override
     public List<PhotonResult> search(PhotonRequest request) {
-        final int limit = request.getLimit();
-        final int extLimit = limit > 1 ? (int) Math.round(limit * 1.5) : 1;
+        if (fallback == SearchFallback.PARALLEL
+                || (fallback == SearchFallback.ADAPTIVE && missPredictor.predictsMiss(request))) {
+            return searchParallel(request);
+        }
 
-        var results = sendQuery(buildQuery(request, false).buildQuery(), extLimit);
+        final int extLimit = getExtendedLimit(request);
+        final SourceConfig source = ResultSourceFilter.forRequest(request.getLanguage(), request.getDebug());
+
+        var results = sendQuery(buildQuery(request, false).buildQuery(), extLimit, source);
 
         if (results.hits().hits().isEmpty()) {
-            results = sendQuery(buildQuery(request, true).buildQuery(), extLimit);
+            if (missPredictor != null) {
+                missPredictor.recordMiss(request);
+            }
+            results = sendQuery(buildQuery(request, true).buildQuery(), extLimit, source);
         }
 
-        List<PhotonResult> ret = new ArrayList<>();
-        for (var hit : results.hits().hits()) {
-            ret.add(hit.source().setScore(hit.score()));
+        return convertHits(results.hits().hits());
+    }
+
+    /**
+     * Send the strict and the lenient query in a single multi-search request
+     * and use the lenient results only when the strict query found nothing.
+     */
+    private List<PhotonResult> searchParallel(PhotonRequest request) {
+        final var msearch = new MsearchRequest.Builder().index(PhotonIndex.NAME);
+        addSearch(msearch, request, false);
+        addSearch(msearch, request, true);
+
+        final List<List<PhotonResult>> results = executeMultiQuery(msearch);
+        for (var result : results) {
+            if (result instanceof FailedResults) {
+                throw new RuntimeException(((FailedResults) result).getMessage());
+            }
         }
 
-        return ret;
+        if (results.get(0).isEmpty()) {
+            if (missPredictor != null) {
+                missPredictor.recordMiss(request);
+            }
+            return results.get(1);
+        }
+
+        return results.get(0);
+    }
+
+    /**
+     * Run the requests with multi-search requests.
+     *
+     * All requests are first sent strict in a single multi-search request.
+     * Requests without results are then repeated together in lenient mode.
+     * A request which fails does not stop the others, it gets a
+     * {@link FailedResults} instead.
+     */
+    @Override
+    public List<List<PhotonResult>> searchBatch(List<PhotonRequest> requests) {
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        final List<List<PhotonResult>> results = sendMultiQuery(requests, false);
+
+        final List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < results.size(); ++i) {
+            if (results.get(i).isEmpty() && !(results.get(i) instanceof FailedResults)) {
+                misses.add(i);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            final List<PhotonRequest> lenientRequests = new ArrayList<>(misses.size());
+            for (int idx : misses) {
+                lenientRequests.add(requests.get(idx));
+            }
+
+            final List<List<PhotonResult>> lenientResults = sendMultiQuery(lenientRequests, true);
+            for (int i = 0; i < misses.size(); ++i) {
+                results.set(misses.get(i), lenientResults.get(i));
+            }
+        }
+
+        return results;
     }
 
     @Override
@@ -55,13 +136,70 @@ public class OpenSearchSearchHandler implements SearchHandler {
                 withBoundingBox(request.getBbox());
     }
 
-    private SearchResponse<OpenSearchResult> sendQuery(Query query, int limit) {
+    private List<PhotonResult> convertHits(List<Hit<OpenSearchResult>> hits) {
+        List<PhotonResult> ret = new ArrayList<>();
+        for (var hit : hits) {
+            ret.add(hit.source().setScore(hit.score()));
+        }
+
+        return ret;
+    }
+
+    private static int getExtendedLimit(PhotonRequest request) {
+        final int limit = request.getLimit();
+        return limit > 1 ? (int) Math.round(limit * 1.5) : 1;
+    }
+
+    private List<List<PhotonResult>> sendMultiQuery(List<PhotonRequest> requests, boolean lenient) {
+        final var msearch = new MsearchRequest.Builder().index(PhotonIndex.NAME);
+        for (PhotonRequest request : requests) {
+            addSearch(msearch, request, lenient);
+        }
+
+        return executeMultiQuery(msearch);
+    }
+
+    private void addSearch(MsearchRequest.Builder msearch, PhotonRequest request, boolean lenient) {
+        final Query query = buildQuery(request, lenient).buildQuery();
+        final int limit = getExtendedLimit(request);
+        final SourceConfig source = ResultSourceFilter.forRequest(request.getLanguage(), request.getDebug());
+        msearch.searches(s -> s
+                .header(h -> h.searchType(SearchType.QueryThenFetch))
+                .body(b -> b
+                        .query(query)
+                        .size(limit)
+                        .source(source)
+                        .timeout(queryTimeout)));
+    }
+
+    private List<List<PhotonResult>> executeMultiQuery(MsearchRequest.Builder msearch) {
+        final List<MultiSearchResponseItem<OpenSearchResult>> responses;
+        try {
+            responses = client.msearch(msearch.build(), OpenSearchResult.class).responses();
+        } catch (IOException e) {
+            throw new RuntimeException("IO error during search", e);
+        }
+
+        final List<List<PhotonResult>> ret = new ArrayList<>(responses.size());
+        for (var response : responses) {
+            if (response.isFailure()) {
+                ret.add(new FailedResults("Error during search: " + response.failure().error().reason()));
+            } else {
+                ret.add(convertHits(response.result().hits().hits()));
+            }
+        }
+
+        return ret;
+    }
+
+    private SearchResponse<OpenSearchResult> sendQuery(Query query, int limit, SourceConfig source) {
         try {
             return client.search(s -> s
                     .index(PhotonIndex.NAME)
                     .searchType(SearchType.QueryThenFetch)
                     .query(query)
                     .size(limit)
+                    .source(source)
                     .timeout(queryTimeout), OpenSearchResult.class);
         } catch (IOException e) {
             throw new RuntimeException("IO error during search", e);
@@ -6,7 +6,10 @@ import de.komoot.photon.query.StructuredPhotonRequest;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.SearchType;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
-import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.MsearchRequest;
+import org.opensearch.client.opensearch.core.msearch.MultiSearchResponseItem;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.opensearch.client.opensearch.core.search.SourceConfig;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,44 +17,51 @@ import java.io.IOException;
 
 /**
  * Execute a structured forward lookup on an Elasticsearch database.
+ *
+ * A lookup tries up to three queries in turn: strict, lenient and lenient
+ * without street and house number. The first one with results wins.
+ * Depending on the fallback mode, the queries are either sent one after
+ * another or all together in a single multi-search request.
  */
 public class OpenSearchStructuredSearchHandler implements StructuredSearchHandler {
     private final OpenSearchClient client;
     private final String[] supportedLanguages;
     private final String queryTimeout;
+    private final SearchFallback fallback;
 
     public OpenSearchStructuredSearchHandler(OpenSearchClient client, String[] languages, int queryTimeoutSec) {
+        this(client, languages, queryTimeoutSec, SearchFallback.SEQUENTIAL);
+    }
+
+    public OpenSearchStructuredSearchHandler(OpenSearchClient client, String[] languages, int queryTimeoutSec,
+                                             SearchFallback fallback) {
         this.client = client;
         this.supportedLanguages = languages;
         queryTimeout = queryTimeoutSec + "s";
+        this.fallback = fallback;
     }
 
     @Override
     public List<PhotonResult> search(StructuredPhotonRequest photonRequest) {
-        var queryBuilder = buildQuery(photonRequest, false);
-
         // for the case of deduplication we need a bit more results, #300
         int limit = photonRequest.getLimit();
         int extLimit = limit > 1 ? (int) Math.round(photonRequest.getLimit() * 1.5) : 1;
 
-        var results = sendQuery(queryBuilder.buildQuery(), extLimit);
+        final SourceConfig source = ResultSourceFilter.forRequest(photonRequest.getLanguage(), photonRequest.getDebug());
 
-        if (results.hits().total().value() == 0) {
-            results = sendQuery(buildQuery(photonRequest, true).buildQuery(), extLimit);
-
-            if (results.hits().total().value() == 0 && photonRequest.hasStreet()) {
-                var street = photonRequest.getStreet();
-                var houseNumber = photonRequest.getHouseNumber();
-                photonRequest.setStreet(null);
-                photonRequest.setHouseNumber(null);
-                results = sendQuery(buildQuery(photonRequest, true).buildQuery(), extLimit);
-                photonRequest.setStreet(street);
-                photonRequest.setHouseNumber(houseNumber);
-            }
+        final List<Query> queries = new ArrayList<>(3);
+        queries.add(buildQuery(photonRequest, false).buildQuery());
+        queries.add(buildQuery(photonRequest, true).buildQuery());
+        if (photonRequest.hasStreet()) {
+            queries.add(buildQuery(photonRequest.withoutStreet(), true).buildQuery());
         }
 
+        final List<Hit<OpenSearchResult>> hits = fallback == SearchFallback.SEQUENTIAL
+                ? sendSequential(queries, extLimit, source)
+                : sendMultiQuery(queries, extLimit, source);
+
         List<PhotonResult> ret = new ArrayList<>();
-        for (var hit : results.hits().hits()) {
+        for (var hit : hits) {
             ret.add(hit.source().setScore(hit.score()));
         }
 
@@ -66,16 +76,57 @@ public class OpenSearchStructuredSearchHandler implements StructuredSearchHandle
                 withBoundingBox(photonRequest.getBbox());
     }
 
-    private SearchResponse<OpenSearchResult> sendQuery(Query query, Integer limit) {
+    private List<Hit<OpenSearchResult>> sendSequential(List<Query> queries, int limit, SourceConfig source) {
+        List<Hit<OpenSearchResult>> hits = List.of();
+        for (Query query : queries) {
+            try {
+                hits = client.search(s -> s
+                        .index(PhotonIndex.NAME)
+                        .searchType(SearchType.QueryThenFetch)
+                        .query(query)
+                        .size(limit)
+                        .source(source)
+                        .timeout(queryTimeout), OpenSearchResult.class).hits().hits();
+            } catch (IOException e) {
+                throw new RuntimeException("IO error during search", e);
+            }
+
+            if (!hits.isEmpty()) {
+                break;
+            }
+        }
+
+        return hits;
+    }
+
+    private List<Hit<OpenSearchResult>> sendMultiQuery(List<Query> queries, int limit, SourceConfig source) {
+        final var msearch = new MsearchRequest.Builder().index(PhotonIndex.NAME);
+        for (Query query : queries) {
+            msearch.searches(s -> s
+                    .header(h -> h.searchType(SearchType.QueryThenFetch))
+                    .body(b -> b
+                            .query(query)
+                            .size(limit)
+                            .source(source)
+                            .timeout(queryTimeout)));
+        }
+
+        final List<MultiSearchResponseItem<OpenSearchResult>> responses;
         try {
-            return client.search(s -> s
-                    .index(PhotonIndex.NAME)
-                    .searchType(SearchType.QueryThenFetch)
-                    .query(query)
-                    .size(limit)
-                    .timeout(queryTimeout), OpenSearchResult.class);
+            responses = client.msearch(msearch.build(), OpenSearchResult.class).responses();
         } catch (IOException e) {
             throw new RuntimeException("IO error during search", e);
         }
+
+        for (var response : responses) {
+            if (response.isFailure()) {
+                throw new RuntimeException("Error during search: " + response.failure().error().reason());
+            }
+            if (!response.result().hits().hits().isEmpty()) {
+                return response.result().hits().hits();
+            }
+        }
+
+        return List.of();
     }
 }
@@ -1,6 +1,9 @@
 package de.komoot.photon.opensearch;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import de.komoot.photon.Constants;
@@ -9,8 +12,10 @@ import de.komoot.photon.Utils;
 import org.locationtech.jts.geom.Envelope;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -19,6 +24,15 @@ public class PhotonDocSerializer extends StdSerializer<PhotonDoc> {
     // in JSON dumps and allows to track changes.
     public static final String FORMAT_VERSION = "1.0.0";
 
+    // Address part maps are mostly shared between many documents
+    // (see NominatimAddressCache), so their JSON output is cached by identity.
+    // The least recently used entries are dropped when the cache is full.
+    private static final int MAX_CACHED_FRAGMENTS = 10000;
+    private static final JsonFactory FRAGMENT_FACTORY = new JsonFactory();
+    private static final SerializableString EMPTY_FRAGMENT = new SerializedString("");
+
+    private final ThreadLocal<FragmentCache> fragmentCache = ThreadLocal.withInitial(FragmentCache::new);
+
     private final String[] languages;
     private final String[] extraTags;
 
@@ -62,16 +76,25 @@ public class PhotonDocSerializer extends StdSerializer<PhotonDoc> {
 
         writeName(gen, value, languages);
 
-        for (var entry : value.getAddressParts().keySet()) {
-            Map<String, String> fNames = new HashMap<>();
+        final FragmentCache fragments = fragmentCache.get();
+
+        for (var entry : value.getAddressParts().entrySet()) {
+            SerializableString fragment = fragments.getAddressPart(entry.getValue());
+            if (fragment == null) {
+                Map<String, String> fNames = new HashMap<>();
 
-            value.copyAddressName(fNames, "default", entry, "name");
+                value.copyAddressName(fNames, "default", entry.getKey(), "name");
+
+                for (String language : languages) {
+                    value.copyAddressName(fNames, language, entry.getKey(), "name:" + language);
+                }
 
-            for (String language : languages) {
-                value.copyAddressName(fNames, language, entry, "name:" + language);
+                fragment = renderFragment(fNames);
+                fragments.putAddressPart(entry.getValue(), fragment);
             }
 
-            gen.writeObjectField(entry.getName(), fNames);
+            gen.writeFieldName(entry.getKey().getName());
+            gen.writeRawValue(fragment);
         }
 
         String countryCode = value.getCountryCode();
@@ -79,7 +102,7 @@ public class PhotonDocSerializer extends StdSerializer<PhotonDoc> {
             gen.writeStringField(Constants.COUNTRYCODE, countryCode);
         }
 
-        writeContext(gen, value.getContext());
+        writeContext(gen, value.getContext(), fragments);
         writeExtraTags(gen, value.getExtratags());
         writeExtent(gen, value.getBbox());
 
@@ -105,30 +128,62 @@ public class PhotonDocSerializer extends StdSerializer<PhotonDoc> {
         gen.writeObjectField("name", fNames);
     }
 
-    private void writeContext(JsonGenerator gen, Set<Map<String, String>> contexts) throws IOException {
-        final Map<String, Set<String>> multimap = new HashMap<>();
+    private void writeContext(JsonGenerator gen, Set<Map<String, String>> contexts,
+                              FragmentCache fragments) throws IOException {
+        if (contexts.isEmpty()) {
+            return;
+        }
 
-        for (Map<String, String> context : contexts) {
-            if (context.get("name") != null) {
-                multimap.computeIfAbsent("default", k -> new HashSet<>()).add(context.get("name"));
-            }
+        // Copies of a document (e.g. for each house number) share the context set
+        // and are serialized one after another.
+        SerializableString fragment = fragments.contexts == contexts ? fragments.contextFragment : null;
+        if (fragment == null) {
+            final Map<String, Set<String>> multimap = new HashMap<>();
+
+            for (Map<String, String> context : contexts) {
+                if (context.get("name") != null) {
+                    multimap.computeIfAbsent("default", k -> new HashSet<>()).add(context.get("name"));
+                }
 
-            for (String language : languages) {
-                if (context.get("name:" + language) != null) {
-                    multimap.computeIfAbsent("default", k -> new HashSet<>()).add(context.get("name:" + language));
+                for (String language : languages) {
+                    if (context.get("name:" + language) != null) {
+                        multimap.computeIfAbsent("default", k -> new HashSet<>()).add(context.get("name:" + language));
+                    }
                 }
             }
-        }
 
-        if (!multimap.isEmpty()) {
-            gen.writeObjectFieldStart("context");
+            final Map<String, String> joined = new HashMap<>();
             for (Map.Entry<String, Set<String>> entry : multimap.entrySet()) {
-                gen.writeStringField(entry.getKey(), String.join(", ", entry.getValue()));
+                joined.put(entry.getKey(), String.join(", ", entry.getValue()));
             }
-            gen.writeEndObject();
+
+            fragment = joined.isEmpty() ? EMPTY_FRAGMENT : renderFragment(joined);
+            fragments.contexts = contexts;
+            fragments.contextFragment = fragment;
+        }
+
+        if (fragment != EMPTY_FRAGMENT) {
+            gen.writeFieldName("context");
+            gen.writeRawValue(fragment);
         }
     }
 
+    /**
+     * Render a simple string map as a JSON object which can be spliced
+     * into the output verbatim.
+     */
+    private static SerializableString renderFragment(Map<String, String> values) throws IOException {
+        final StringWriter writer = new StringWriter();
+        try (JsonGenerator fragmentGen = FRAGMENT_FACTORY.createGenerator(writer)) {
+            fragmentGen.writeStartObject();
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                fragmentGen.writeStringField(entry.getKey(), entry.getValue());
+            }
+            fragmentGen.writeEndObject();
+        }
+        return new SerializedString(writer.toString());
+    }
+
     private void writeExtraTags(JsonGenerator gen, Map<String, String> docTags) throws IOException {
         boolean foundTag = false;
 
@@ -170,4 +225,57 @@ public class PhotonDocSerializer extends StdSerializer<PhotonDoc> {
         gen.writeEndObject();
     }
 
+
+    /**
+     * Get the cached JSON output of an address part for the current thread.
+     */
+    SerializableString getCachedAddressPart(Map<String, String> addressPart) {
+        return fragmentCache.get().getAddressPart(addressPart);
+    }
+
+    /**
+     * Per-thread cache of rendered JSON fragments.
+     */
+    private static final class FragmentCache {
+        private final Map<IdentityKey, SerializableString> addressParts =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<IdentityKey, SerializableString> eldest) {
+                        return size() > MAX_CACHED_FRAGMENTS;
+                    }
+                };
+
+        // Context set of the last document, context sets are not shared otherwise.
+        private Object contexts = null;
+        private SerializableString contextFragment = null;
+
+        SerializableString getAddressPart(Object part) {
+            return addressParts.get(new IdentityKey(part));
+        }
+
+        void putAddressPart(Object part, SerializableString fragment) {
+            addressParts.put(new IdentityKey(part), fragment);
+        }
+    }
+
+    /**
+     * Map key comparing the wrapped object by identity.
+     */
+    private static final class IdentityKey {
+        private final Object object;
+
+        IdentityKey(Object object) {
+            this.object = object;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).object == object;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(object);
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package de.komoot.photon.opensearch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Document which has already been serialized to JSON.
+ *
+ * The JSON text is written out verbatim when the document is sent to the database.
+ */
+@JsonSerialize(using = RawJsonDocument.Serializer.class)
+public class RawJsonDocument {
+    private final String id;
+    private final String json;
+
+    public RawJsonDocument(String id, String json) {
+        this.id = id;
+        this.json = json;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    static class Serializer extends StdSerializer<RawJsonDocument> {
+        Serializer() {
+            super(RawJsonDocument.class);
+        }
+
+        @Override
+        public void serialize(RawJsonDocument value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeRawValue(value.json);
+        }
+    }
+}
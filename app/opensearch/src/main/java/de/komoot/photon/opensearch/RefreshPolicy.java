@@ -0,0 +1,25 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.UsageException;
+
+import java.util.Locale;
+
+/**
+ * Defines how updates are made visible for searching.
+ */
+public enum RefreshPolicy {
+    /** Refresh the Photon index after all updates have been sent. */
+    INDEX,
+    /** Let the last bulk request of an update run wait until the changes have been made visible by a scheduled refresh. */
+    WAIT_FOR,
+    /** Do not refresh, changes become visible with the next scheduled refresh. */
+    NONE;
+
+    public static RefreshPolicy fromString(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UsageException("Unknown refresh policy '" + value + "'. Use one of: index, wait_for, none.");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.komoot.photon.opensearch;
+
+import org.opensearch.client.opensearch.core.search.SourceConfig;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Restricts the document source returned with search hits to what is needed
+ * for a response.
+ *
+ * Only the fields used by the result formatter are fetched and localised
+ * fields only in the language of the request and the fallback variants.
+ * Debug requests need to see the complete source.
+ */
+public final class ResultSourceFilter {
+    private static final Map<String, SourceConfig> CONFIGS = new ConcurrentHashMap<>();
+
+    private ResultSourceFilter() {
+    }
+
+    /**
+     * Get the source configuration for a request.
+     *
+     * @param language Language of the request.
+     * @param debug    When set, the full source is returned.
+     *
+     * @return Source configuration or null when the full source is needed.
+     */
+    public static SourceConfig forRequest(String language, boolean debug) {
+        if (debug) {
+            return null;
+        }
+
+        return CONFIGS.computeIfAbsent(language == null ? "default" : language,
+                lang -> SourceConfig.of(sc -> sc.filter(f -> f.includes(buildIncludes(lang)))));
+    }
+
+    static List<String> buildIncludes(String language) {
+        final Set<String> includes = new LinkedHashSet<>();
+        for (String field : OpenSearchResult.INFO_FIELDS) {
+            includes.add(field);
+        }
+        includes.add("coordinate");
+        includes.add("extent");
+        includes.add("extra");
+
+        for (String field : OpenSearchResult.MAP_FIELDS) {
+            if (!"extra".equals(field)) {
+                includes.add(field + ".default");
+                includes.add(field + "." + language);
+            }
+        }
+
+        for (String variant : OpenSearchResult.NAME_PRECEDENCE) {
+            includes.add("name." + variant);
+        }
+
+        return new ArrayList<>(includes);
+    }
+}
@@ -0,0 +1,25 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.UsageException;
+
+import java.util.Locale;
+
+/**
+ * Defines when the lenient query of a forward search is sent.
+ */
+public enum SearchFallback {
+    /** Send the lenient query after the strict query has returned no results. */
+    SEQUENTIAL,
+    /** Always send the strict and the lenient query together in a single multi-search request. */
+    PARALLEL,
+    /** Send both queries together only when the strict query is expected to return no results. */
+    ADAPTIVE;
+
+    public static SearchFallback fromString(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UsageException("Unknown search fallback '" + value + "'. Use one of: sequential, parallel, adaptive.");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package de.komoot.photon.opensearch;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.komoot.photon.query.PhotonRequest;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Guesses if the strict query of a forward search will return no results.
+ *
+ * Autocomplete clients send a new request for every key stroke. Once the
+ * strict query for a prefix has failed, for example because of a typo,
+ * the strict queries for all longer inputs are very likely to fail as well.
+ * The predictor remembers recent queries without strict results and
+ * predicts a miss for every query which extends one of them.
+ */
+class StrictMissPredictor {
+    private static final int MAX_ENTRIES = 10000;
+    private static final Duration EXPIRY = Duration.ofMinutes(10);
+    // Shorter prefixes are too unspecific to predict anything.
+    private static final int MIN_PREFIX_LENGTH = 3;
+
+    private final Cache<String, Boolean> misses = Caffeine.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterWrite(EXPIRY)
+            .build();
+
+    void recordMiss(PhotonRequest request) {
+        final String key = normalize(request);
+        if (key != null) {
+            misses.put(key, Boolean.TRUE);
+        }
+    }
+
+    boolean predictsMiss(PhotonRequest request) {
+        final String key = normalize(request);
+        if (key == null) {
+            return false;
+        }
+
+        final int start = key.indexOf('|') + 1;
+        for (int end = key.length(); end >= start + MIN_PREFIX_LENGTH; --end) {
+            if (misses.getIfPresent(key.substring(0, end)) != null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String normalize(PhotonRequest request) {
+        final String query = request.getQuery();
+        if (query == null) {
+            return null;
+        }
+
+        return request.getLanguage() + '|'
+                + query.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
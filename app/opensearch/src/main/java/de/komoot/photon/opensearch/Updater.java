@@ -2,22 +2,41 @@ package de.komoot.photon.opensearch;
 
 import de.komoot.photon.PhotonDoc;
 import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.json.JsonData;
+import org.opensearch.client.opensearch._types.Refresh;
 import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.mget.MultiGetResponseItem;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class Updater implements de.komoot.photon.Updater {
     private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(Updater.class);
 
+    /**
+     * Number of object ids per place to look up with a single request
+     * when searching for left-over documents.
+     */
+    private static final int SUBSEQUENT_WINDOW = 4;
+
     private final OpenSearchClient client;
     private BulkRequest.Builder bulkRequest = new BulkRequest.Builder();
     private int todoDocuments = 0;
+    private boolean failedSinceFlush = false;
+    private RefreshPolicy refreshPolicy = RefreshPolicy.INDEX;
 
     public Updater(OpenSearchClient client) {
         this.client = client;
     }
 
+    public void setRefreshPolicy(RefreshPolicy refreshPolicy) {
+        this.refreshPolicy = refreshPolicy;
+    }
+
     @Override
     public void create(PhotonDoc doc, int objectId) {
         bulkRequest.operations(op -> op
@@ -53,13 +72,91 @@ public class Updater implements de.komoot.photon.Updater {
         return false;
     }
 
+    /**
+     * Find left-over documents with multi-get requests and queue their deletion.
+     *
+     * The object ids are looked up in windows, so that usually a single
+     * request is needed for a whole batch of places.
+     */
+    @Override
+    public void deleteSubsequent(Map<Long, Integer> firstObjectIds) {
+        Map<Long, Integer> todo = firstObjectIds;
+        while (!todo.isEmpty()) {
+            final List<String> ids = new ArrayList<>(todo.size() * SUBSEQUENT_WINDOW);
+            for (var entry : todo.entrySet()) {
+                for (int i = 0; i < SUBSEQUENT_WINDOW; ++i) {
+                    ids.add(PhotonDoc.makeUid(entry.getKey(), entry.getValue() + i));
+                }
+            }
+
+            final List<MultiGetResponseItem<JsonData>> docs;
+            try {
+                docs = client.mget(m -> m
+                        .index(PhotonIndex.NAME)
+                        .ids(ids)
+                        .source(src -> src.fetch(false)), JsonData.class).docs();
+            } catch (IOException e) {
+                // Left-over documents are not removed, so the changes need to be applied again.
+                LOGGER.error("IO error on multi-get operation", e);
+                failedSinceFlush = true;
+                return;
+            }
+
+            final Map<Long, Integer> next = new LinkedHashMap<>();
+            int pos = 0;
+            for (var entry : todo.entrySet()) {
+                int objectId = entry.getValue();
+                boolean allFound = true;
+                for (int i = 0; i < SUBSEQUENT_WINDOW; ++i, ++pos) {
+                    if (allFound && docs.get(pos).isFailure()) {
+                        LOGGER.error("Error on multi-get operation: {}", docs.get(pos).failure().error().reason());
+                        failedSinceFlush = true;
+                    }
+                    if (allFound && docs.get(pos).isResult() && docs.get(pos).result().found()) {
+                        delete(entry.getKey(), objectId++);
+                    } else {
+                        allFound = false;
+                    }
+                }
+                if (allFound) {
+                    next.put(entry.getKey(), objectId);
+                }
+            }
+            todo = next;
+        }
+    }
+
+    @Override
+    public boolean flush() {
+        updateDocuments();
+
+        final boolean success = !failedSinceFlush;
+        failedSinceFlush = false;
+        return success;
+    }
+
+    /**
+     * With the wait_for policy, the bulk request waits until the next
+     * scheduled refresh has made the changes visible. Only the last request
+     * of an update run waits, so that the earlier chunks are not held up.
+     */
+    @Override
+    public boolean flushFinal() {
+        if (refreshPolicy == RefreshPolicy.WAIT_FOR && todoDocuments > 0) {
+            bulkRequest.refresh(Refresh.WaitFor);
+        }
+        return flush();
+    }
+
     @Override
     public void finish() {
         updateDocuments();
-        try {
-            client.indices().refresh();
-        } catch (IOException e) {
-            LOGGER.warn("IO error on refresh.");
+        if (refreshPolicy == RefreshPolicy.INDEX) {
+            try {
+                client.indices().refresh(r -> r.index(PhotonIndex.NAME));
+            } catch (IOException e) {
+                LOGGER.warn("IO error on refresh.");
+            }
         }
     }
 
@@ -70,9 +167,11 @@ public class Updater implements de.komoot.photon.Updater {
 
                 if (response.errors()) {
                     LOGGER.error("Errors during bulk update.");
+                    failedSinceFlush = true;
                 }
             } catch (IOException e) {
                 LOGGER.error("IO error during bulk update", e);
+                failedSinceFlush = true;
             }
 
             bulkRequest = new BulkRequest.Builder();
@@ -1,5 +1,6 @@
 package de.komoot.photon;
 
+import de.komoot.photon.opensearch.PhotonIndex;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
@@ -25,4 +26,54 @@ class ServerTest extends ESBaseTester {
         assertEquals(now, prop.getImportDate());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void testVersionedIndexReplacesIndex() throws IOException {
+        setUpES();
+
+        Importer importer = makeImporter();
+        importer.add(new PhotonDoc(1, "N", 100, "place", "city"), 0);
+        importer.finish();
+
+        for (int i = 2; i <= 3; ++i) {
+            getServer().createVersionedIndex(new String[]{"en", "de"}, new Date(), false);
+            importer = makeImporter();
+            importer.add(new PhotonDoc(i, "N", 100 + i, "place", "city"), 0);
+            importer.finish();
+
+            // old data still visible until the switch
+            assertNotNull(getById(i - 1));
+            assertNull(getById(i));
+
+            getServer().activateVersionedIndex(i == 3);
+
+            assertNull(getById(i - 1));
+            assertNotNull(getById(i));
+            assertArrayEquals(new String[]{"en", "de"}, getServer().loadFromDatabase().getLanguages());
+        }
+    }
+
+    @Test
+    void testIndexSettingsAfterImport() throws IOException {
+        setUpES();
+        getServer().setRefreshSettings("none", "30s", 0);
+
+        Importer importer = makeImporter();
+        importer.add(new PhotonDoc(1, "N", 100, "place", "city"), 0);
+        importer.finish();
+
+        final var state = getServer().client.indices()
+                .getSettings(s -> s.index(PhotonIndex.NAME)).result().values().iterator().next();
+        final var settings = state.settings().index() == null ? state.settings() : state.settings().index();
+
+        assertEquals("30s", settings.refreshInterval().time());
+        assertEquals("0", settings.numberOfReplicas());
+    }
+
+    @Test
+    void testUnknownRefreshPolicy() throws IOException {
+        setUpES();
+
+        assertThrows(UsageException.class, () -> getServer().setRefreshSettings("always", "15s", 1));
+    }
+}
@@ -0,0 +1,98 @@
+package de.komoot.photon;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ShardedJsonDumperTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        final String basename = tempDir.resolve("dump").toString();
+        final Importer dumper = new ShardedJsonDumper(basename, 3, true, new String[]{"en", "de"}, new String[]{});
+        for (int i = 1; i <= 10; ++i) {
+            dumper.add(new PhotonDoc(i, "N", 100 + i, "place", "village"), 0);
+        }
+        dumper.add(new PhotonDoc(4, "N", 104, "place", "village").houseNumber("12"), 1);
+        dumper.finish();
+
+        final JsonNode manifest = MAPPER.readTree(tempDir.resolve("dump.manifest.json").toFile());
+        assertEquals("Photon Dump Manifest", manifest.get("id").asText());
+        assertEquals("gzip", manifest.get("compression").asText());
+        assertEquals(2, manifest.get("languages").size());
+        assertEquals(3, manifest.get("parts").size());
+
+        final Set<String> ids = new HashSet<>();
+        long numDocuments = 0;
+        for (JsonNode part : manifest.get("parts")) {
+            final List<JsonNode> lines = readPart(tempDir.resolve(part.get("file").asText()));
+
+            assertEquals("Photon Dump Header", lines.get(0).get("id").asText());
+            assertEquals(part.get("documents").asLong(), lines.size() - 1);
+            for (JsonNode line : lines.subList(1, lines.size())) {
+                ids.add(line.get("id").asText());
+                assertTrue(line.has("document"));
+            }
+            numDocuments += part.get("documents").asLong();
+        }
+
+        assertEquals(11, numDocuments);
+        assertEquals(11, ids.size());
+        assertTrue(ids.contains("4.1"));
+    }
+
+    @Test
+    void testFailingShard() throws IOException {
+        final String basename = tempDir.resolve("dump").toString();
+        final Importer dumper = new ShardedJsonDumper(basename, 2, false, new String[]{"en"}, new String[]{});
+
+        final PhotonDoc broken = mock(PhotonDoc.class);
+        when(broken.getPlaceId()).thenReturn(0L);
+        when(broken.getUid(anyInt())).thenThrow(new IllegalStateException("broken document"));
+        dumper.add(broken, 0);
+
+        // More documents for the failed shard than fit into its queue must not block.
+        for (int i = 0; i < 5000; ++i) {
+            dumper.add(new PhotonDoc(2L * i, "N", i, "place", "village"), 0);
+        }
+
+        final UsageException e = assertThrows(UsageException.class, dumper::finish);
+        assertTrue(e.getMessage().contains("dump.0000.ndjson"));
+        assertFalse(Files.exists(tempDir.resolve("dump.manifest.json")));
+    }
+
+    private static List<JsonNode> readPart(Path file) throws IOException {
+        try (var reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            final List<String> lines = reader.lines().filter(l -> !l.isBlank()).collect(Collectors.toList());
+            final List<JsonNode> nodes = new ArrayList<>(lines.size());
+            for (String line : lines) {
+                nodes.add(MAPPER.readTree(line));
+            }
+            return nodes;
+        }
+    }
+}
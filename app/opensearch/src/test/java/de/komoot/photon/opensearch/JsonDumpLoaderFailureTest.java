@@ -0,0 +1,71 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.Importer;
+import de.komoot.photon.JsonDumper;
+import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.UsageException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.BulkResponse;
+import org.opensearch.client.opensearch.core.bulk.BulkResponseItem;
+import org.opensearch.client.opensearch.core.bulk.OperationType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JsonDumpLoaderFailureTest {
+    @TempDir
+    Path tempDir;
+
+    private OpenSearchClient client;
+    private String dumpFile;
+
+    @BeforeEach
+    void setup() throws IOException {
+        client = mock(OpenSearchClient.class, RETURNS_DEEP_STUBS);
+
+        dumpFile = tempDir.resolve("dump.json").toString();
+        final Importer dumper = new JsonDumper(dumpFile, new String[]{"en"}, new String[]{});
+        for (int i = 1; i <= 30000; ++i) {
+            dumper.add(new PhotonDoc(i, "N", i, "place", "village"), 0);
+        }
+        dumper.finish();
+    }
+
+    @Test
+    void testRejectedDocumentsFailLoad() throws IOException {
+        final BulkResponseItem rejected = BulkResponseItem.of(i -> i
+                .operationType(OperationType.Index)
+                .index(PhotonIndex.NAME)
+                .id("17")
+                .status(400)
+                .error(e -> e.type("mapper_parsing_exception").reason("failed to parse")));
+        when(client.bulk(any(BulkRequest.class)))
+                .thenReturn(BulkResponse.of(b -> b.errors(true).took(1).items(List.of(rejected))));
+
+        final var loader = new JsonDumpLoader(client, PhotonIndex.NAME, 2);
+
+        final UsageException e = assertThrows(UsageException.class, () -> loader.load(List.of(dumpFile)));
+        assertTrue(e.getMessage().contains("failed to parse"));
+    }
+
+    @Test
+    @Timeout(30)
+    void testUnexpectedWriterErrorDoesNotBlock() throws IOException {
+        when(client.bulk(any(BulkRequest.class))).thenThrow(new IllegalStateException("mapping broken"));
+
+        final var loader = new JsonDumpLoader(client, PhotonIndex.NAME, 1);
+
+        final UsageException e = assertThrows(UsageException.class, () -> loader.load(List.of(dumpFile)));
+        assertTrue(e.getMessage().contains("mapping broken"));
+    }
+}
@@ -0,0 +1,71 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.*;
+import de.komoot.photon.searcher.PhotonResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonDumpLoaderTest extends ESBaseTester {
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        setUpES();
+    }
+
+    @Test
+    void testLoadSimpleDump() throws IOException {
+        final String dumpFile = dataDirectory.resolve("dump.json").toString();
+        final Importer dumper = new JsonDumper(dumpFile, new String[]{"en"}, new String[]{});
+        dumper.add(new PhotonDoc(1234, "N", 1000, "place", "city"), 0);
+        dumper.add(new PhotonDoc(4432, "N", 100, "building", "yes").houseNumber("34"), 0);
+        dumper.add(new PhotonDoc(4432, "N", 100, "building", "yes").houseNumber("35"), 1);
+        dumper.finish();
+
+        assertEquals(3, getServer().loadJsonDump(List.of(dumpFile), 2, new ImportStatistics()));
+
+        PhotonResult response = getById(1234);
+        assertNotNull(response);
+        assertEquals("N", response.get("osm_type"));
+        assertEquals(1000, response.get("osm_id"));
+        assertEquals("city", response.get("osm_value"));
+
+        response = getById("4432.1");
+        assertNotNull(response);
+        assertEquals("35", response.get("housenumber"));
+    }
+
+    @Test
+    void testLoadShardedDump() throws IOException {
+        final String basename = dataDirectory.resolve("dump").toString();
+        final Importer dumper = new ShardedJsonDumper(basename, 3, true, new String[]{"en"}, new String[]{});
+        for (int i = 1; i <= 10; ++i) {
+            dumper.add(new PhotonDoc(i, "N", 100 + i, "place", "village"), 0);
+        }
+        dumper.finish();
+
+        assertTrue(Files.exists(dataDirectory.resolve("dump.0002.ndjson.gz")));
+
+        assertEquals(10, getServer().loadJsonDump(List.of(basename + ".manifest.json"), 2, new ImportStatistics()));
+
+        for (int i = 1; i <= 10; ++i) {
+            PhotonResult response = getById(i);
+            assertNotNull(response);
+            assertEquals(100 + i, response.get("osm_id"));
+        }
+    }
+
+    @Test
+    void testRejectNonDumpFile() throws IOException {
+        final var file = dataDirectory.resolve("other.json");
+        Files.writeString(file, "{\"index\": {}}\n{\"osm_id\": 1}\n");
+
+        assertThrows(UsageException.class,
+                () -> getServer().loadJsonDump(List.of(file.toString()), 1, new ImportStatistics()));
+    }
+}
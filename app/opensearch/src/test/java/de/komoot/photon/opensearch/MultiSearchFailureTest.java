@@ -0,0 +1,94 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.query.PhotonRequest;
+import de.komoot.photon.query.ReverseRequest;
+import de.komoot.photon.searcher.FailedResults;
+import de.komoot.photon.searcher.PhotonResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch.core.MsearchRequest;
+import org.opensearch.client.opensearch.core.MsearchResponse;
+import org.opensearch.client.opensearch.core.msearch.MultiSearchResponseItem;
+import org.opensearch.client.opensearch.core.search.Hit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MultiSearchFailureTest {
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private OpenSearchClient client;
+
+    @BeforeEach
+    void setup() {
+        client = mock(OpenSearchClient.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockResponses(boolean... failures) throws IOException {
+        final List<MultiSearchResponseItem<OpenSearchResult>> items = new ArrayList<>();
+        for (boolean failed : failures) {
+            final MultiSearchResponseItem<OpenSearchResult> item = mock(MultiSearchResponseItem.class, RETURNS_DEEP_STUBS);
+            when(item.isFailure()).thenReturn(failed);
+            if (failed) {
+                when(item.failure().error().reason()).thenReturn("too many clauses");
+            } else {
+                final Hit<OpenSearchResult> hit = mock(Hit.class);
+                when(hit.source()).thenReturn(new OpenSearchResult(null, new double[]{13.4, 52.5},
+                        new Object[OpenSearchResult.INFO_FIELDS.length], new Map[OpenSearchResult.MAP_FIELDS.length],
+                        null, null));
+                when(hit.score()).thenReturn(1.0);
+                when(item.result().hits().hits()).thenReturn(List.of(hit));
+            }
+            items.add(item);
+        }
+
+        final MsearchResponse<OpenSearchResult> response = mock(MsearchResponse.class);
+        when(response.responses()).thenReturn(items);
+        when(client.msearch(any(MsearchRequest.class), eq(OpenSearchResult.class))).thenReturn(response);
+    }
+
+    @Test
+    void testSearchBatchContinuesAfterFailedRequest() throws IOException {
+        mockResponses(false, true, false);
+
+        final List<List<PhotonResult>> results = new OpenSearchSearchHandler(client, new String[]{"en"}, 10)
+                .searchBatch(List.of(new PhotonRequest("berlin", "en"),
+                        new PhotonRequest("hamburg", "en"),
+                        new PhotonRequest("munich", "en")));
+
+        assertEquals(3, results.size());
+        assertEquals(1, results.get(0).size());
+        assertInstanceOf(FailedResults.class, results.get(1));
+        assertEquals("Error during search: too many clauses", ((FailedResults) results.get(1)).getMessage());
+        assertEquals(1, results.get(2).size());
+
+        // Failed requests are not repeated in lenient mode.
+        verify(client, times(1)).msearch(any(MsearchRequest.class), eq(OpenSearchResult.class));
+    }
+
+    @Test
+    void testReverseBatchContinuesAfterFailedRequest() throws IOException {
+        mockResponses(true, false);
+
+        final var request = new ReverseRequest(FACTORY.createPoint(new Coordinate(13.4, 52.5)),
+                "en", 1.0, null, 1, true, Set.of(), false);
+        final List<List<PhotonResult>> results = new OpenSearchReverseHandler(client, 10)
+                .reverseBatch(List.of(request, request));
+
+        assertEquals(2, results.size());
+        assertInstanceOf(FailedResults.class, results.get(0));
+        assertEquals(1, results.get(1).size());
+    }
+}
@@ -0,0 +1,97 @@
+package de.komoot.photon.opensearch;
+
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import de.komoot.photon.searcher.PhotonResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenSearchResultDeserializerTest {
+    private static final String SOURCE = "{"
+            + "\"osm_id\": 1234567890123, \"osm_type\": \"W\", \"osm_key\": \"highway\", \"osm_value\": \"residential\","
+            + "\"type\": \"street\", \"importance\": 0.25, \"postcode\": \"80331\", \"countrycode\": \"DE\","
+            + "\"coordinate\": {\"lat\": 48.1, \"lon\": 11.5},"
+            + "\"extent\": {\"type\": \"envelope\", \"coordinates\": [[11.4, 48.2], [11.6, 48.0]]},"
+            + "\"name\": {\"default\": \"Hauptstraße\", \"de\": \"Hauptstraße\", \"en\": \"Main Street\", \"fr\": \"Rue principale\", \"alt\": \"Alte Straße\"},"
+            + "\"city\": {\"default\": \"München\", \"en\": \"Munich\", \"it\": \"Monaco di Baviera\"},"
+            + "\"context\": {\"default\": \"Altstadt\"},"
+            + "\"extra\": {\"surface\": \"asphalt\"},"
+            + "\"unknown\": [1, 2, {\"a\": \"b\"}]"
+            + "}";
+
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        final var module = new SimpleModule("PhotonResultDeserializer",
+                new Version(1, 0, 0, null, null, null));
+        module.addDeserializer(OpenSearchResult.class, new OpenSearchResultDeserializer());
+
+        mapper = new ObjectMapper();
+        mapper.registerModule(module);
+    }
+
+    private OpenSearchResult read(String json) throws IOException {
+        return mapper.readValue(json, OpenSearchResult.class);
+    }
+
+    @Test
+    void testReadAllFields() throws IOException {
+        final var result = read(SOURCE);
+
+        assertEquals(1234567890123L, result.get("osm_id"));
+        assertEquals("W", result.get("osm_type"));
+        assertEquals("street", result.get("type"));
+        assertEquals(0.25, result.get("importance"));
+        assertEquals("DE", result.get("countrycode"));
+        assertNull(result.get("housenumber"));
+        assertNull(result.get("unknown"));
+
+        assertArrayEquals(new double[]{11.5, 48.1}, result.getCoordinates());
+        assertArrayEquals(new double[]{11.4, 48.2, 11.6, 48.0}, result.getExtent());
+
+        assertEquals("Rue principale", result.getLocalised("name", "fr"));
+        assertEquals("Monaco di Baviera", result.getLocalised("city", "it"));
+        assertEquals(Map.of("surface", "asphalt"), result.getMap("extra"));
+        assertNull(result.getMap("context"));
+    }
+
+    @Test
+    void testKeepAllLanguages() throws IOException {
+        final var result = read(SOURCE);
+
+        assertEquals(Map.of("default", "Hauptstraße", "de", "Hauptstraße", "en", "Main Street",
+                        "fr", "Rue principale", "alt", "Alte Straße"),
+                result.getMap("name"));
+        assertEquals(Map.of("default", "München", "en", "Munich", "it", "Monaco di Baviera"),
+                result.getMap("city"));
+    }
+
+    @Test
+    void testRawDataKeepsFullSource() throws IOException {
+        final var raw = read("{\"osm_id\": 5, \"parent_place_id\": 1234, \"importance\": 0.5,"
+                + "\"name\": {\"default\": \"Foo\", \"eo\": \"Fu\"},"
+                + "\"context\": {\"default\": \"Bar\"}}").getRawData();
+
+        assertEquals(5, raw.getJSONObject("infos").get("osm_id"));
+        assertEquals(1234, raw.getJSONObject("infos").get("parent_place_id"));
+        assertEquals("Fu", raw.getJSONObject("localeTags").getJSONObject("name").get("eo"));
+        assertEquals("Bar", raw.getJSONObject("localeTags").getJSONObject("context").get("default"));
+    }
+
+    @Test
+    void testMissingCoordinateAndExtent() throws IOException {
+        final var result = read("{\"osm_id\": 5, \"name\": {\"default\": \"Foo\"}}");
+
+        assertEquals(5, result.get("osm_id"));
+        assertSame(PhotonResult.INVALID_COORDINATES, result.getCoordinates());
+        assertNull(result.getExtent());
+        assertNull(result.getMap("city"));
+    }
+}
@@ -0,0 +1,93 @@
+package de.komoot.photon.opensearch;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.nominatim.model.AddressType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhotonDocSerializerTest {
+    private ObjectMapper mapper;
+    private PhotonDocSerializer serializer;
+
+    @BeforeEach
+    void setUp() {
+        serializer = new PhotonDocSerializer(new String[]{"en", "de"}, new String[]{});
+        final var module = new SimpleModule("PhotonDocSerializer",
+                new Version(1, 0, 0, null, null, null));
+        module.addSerializer(PhotonDoc.class, serializer);
+
+        mapper = new ObjectMapper();
+        mapper.registerModule(module);
+    }
+
+    private JsonNode serialize(PhotonDoc doc) throws IOException {
+        return mapper.readTree(mapper.writeValueAsString(doc));
+    }
+
+    @Test
+    void testSharedAddressPartsAreWrittenForEachDocument() throws IOException {
+        final Map<String, String> city = Map.of("name", "Munich", "name:de", "München");
+
+        for (int i = 0; i < 3; ++i) {
+            final var doc = new PhotonDoc(i, "N", i, "amenity", "cafe")
+                    .names(Map.of("name", "Cafe " + i));
+            doc.setAddressPartIfNew(AddressType.CITY, city);
+            doc.getContext().add(Map.of("name", "Schwabing"));
+
+            final JsonNode json = serialize(doc);
+
+            assertEquals("Munich", json.path("city").path("default").asText());
+            assertEquals("München", json.path("city").path("de").asText());
+            assertFalse(json.path("city").has("en"));
+            assertEquals("Schwabing", json.path("context").path("default").asText());
+            assertEquals("Cafe " + i, json.path("name").path("default").asText());
+        }
+    }
+
+    @Test
+    void testSharedAddressPartsSurviveLongStream() throws IOException {
+        final Map<String, String> city = Map.of("name", "Munich", "name:de", "München");
+        final Map<String, String> firstStreet = Map.of("name", "Street 0");
+
+        SerializableString cityFragment = null;
+        for (int i = 0; i < 25000; ++i) {
+            final var doc = new PhotonDoc(i, "N", i, "amenity", "cafe");
+            doc.setAddressPartIfNew(AddressType.CITY, city);
+            // Every document has its own street and its own context.
+            doc.setAddressPartIfNew(AddressType.STREET, i == 0 ? firstStreet : Map.of("name", "Street " + i));
+            doc.getContext().add(Map.of("name", "Quarter " + i));
+
+            final JsonNode json = serialize(doc);
+            assertEquals("Quarter " + i, json.path("context").path("default").asText());
+
+            if (i == 0) {
+                cityFragment = serializer.getCachedAddressPart(city);
+                assertNotNull(cityFragment);
+            }
+        }
+
+        assertSame(cityFragment, serializer.getCachedAddressPart(city));
+        assertNull(serializer.getCachedAddressPart(firstStreet));
+    }
+
+    @Test
+    void testPlaceNamesTakePrecedence() throws IOException {
+        final var doc = new PhotonDoc(1, "N", 1, "amenity", "cafe");
+        doc.setAddressPartIfNew(AddressType.CITY, Map.of("name", "Munich", "_place_name", "Muenchen"));
+
+        final JsonNode json = serialize(doc);
+
+        assertEquals("Muenchen", json.path("city").path("default").asText());
+        assertFalse(json.has("context"));
+    }
+}
@@ -0,0 +1,50 @@
+package de.komoot.photon.opensearch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultSourceFilterTest {
+
+    @Test
+    void testIncludesOnlyRequestLanguage() {
+        final var includes = ResultSourceFilter.buildIncludes("de");
+
+        assertTrue(includes.contains("osm_id"));
+        assertTrue(includes.contains("coordinate"));
+        assertTrue(includes.contains("extent"));
+        assertTrue(includes.contains("extra"));
+        assertTrue(includes.contains("name.de"));
+        assertTrue(includes.contains("name.default"));
+        assertTrue(includes.contains("name.alt"));
+        assertTrue(includes.contains("city.de"));
+        assertTrue(includes.contains("city.default"));
+
+        assertFalse(includes.contains("name.en"));
+        assertFalse(includes.contains("city.alt"));
+        assertFalse(includes.contains("context.default"));
+    }
+
+    @Test
+    void testIncludesAllNameVariants() {
+        final var includes = ResultSourceFilter.buildIncludes("en");
+
+        for (String variant : OpenSearchResult.NAME_PRECEDENCE) {
+            assertTrue(includes.contains("name." + variant), variant);
+        }
+    }
+
+    @Test
+    void testDefaultLanguageIsNotDuplicated() {
+        final var includes = ResultSourceFilter.buildIncludes("default");
+
+        assertEquals(1, includes.stream().filter("name.default"::equals).count());
+    }
+
+    @Test
+    void testDebugFetchesFullSource() {
+        assertNull(ResultSourceFilter.forRequest("en", true));
+        assertNotNull(ResultSourceFilter.forRequest("en", false));
+        assertSame(ResultSourceFilter.forRequest("en", false), ResultSourceFilter.forRequest("en", false));
+    }
+}
@@ -0,0 +1,35 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.query.PhotonRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StrictMissPredictorTest {
+
+    @Test
+    void testPredictsMissForExtendedInput() {
+        final var predictor = new StrictMissPredictor();
+
+        assertFalse(predictor.predictsMiss(new PhotonRequest("berlni", "en")));
+
+        predictor.recordMiss(new PhotonRequest("berlni", "en"));
+
+        assertTrue(predictor.predictsMiss(new PhotonRequest("berlni", "en")));
+        assertTrue(predictor.predictsMiss(new PhotonRequest("Berlnin ", "en")));
+        assertTrue(predictor.predictsMiss(new PhotonRequest("berlni  alexanderplatz", "en")));
+
+        assertFalse(predictor.predictsMiss(new PhotonRequest("berl", "en")));
+        assertFalse(predictor.predictsMiss(new PhotonRequest("berlin", "en")));
+        assertFalse(predictor.predictsMiss(new PhotonRequest("berlni", "de")));
+    }
+
+    @Test
+    void testShortPrefixesAreIgnored() {
+        final var predictor = new StrictMissPredictor();
+
+        predictor.recordMiss(new PhotonRequest("xy", "en"));
+
+        assertFalse(predictor.predictsMiss(new PhotonRequest("xyz", "en")));
+    }
+}
@@ -233,6 +233,40 @@ public class StructuredQueryTest extends ESBaseTester {
         Assertions.assertEquals(request.getCity(), result.getLocalised(Constants.NAME, LANGUAGE));
     }
 
+    @Test
+    void testWrongHouseNumberAndWrongStreetInSingleRequest() {
+        getServer().setSearchFallback("parallel");
+
+        var request = new StructuredPhotonRequest(LANGUAGE);
+        request.setCountryCode(COUNTRY_CODE);
+        request.setCity(CITY);
+        request.setStreet("does not exist");
+        request.setHouseNumber("1");
+        var result = search(request);
+        assertNull(result.getLocalised(Constants.HOUSENUMBER, LANGUAGE));
+        assertNull(result.getLocalised(Constants.STREET, LANGUAGE));
+        Assertions.assertEquals(request.getCity(), result.getLocalised(Constants.NAME, LANGUAGE));
+
+        // The fallback must not change the request.
+        assertEquals("does not exist", request.getStreet());
+        assertEquals("1", request.getHouseNumber());
+    }
+
+    @Test
+    void testHouseInSingleRequest() {
+        getServer().setSearchFallback("parallel");
+
+        var request = new StructuredPhotonRequest(LANGUAGE);
+        request.setCountryCode(COUNTRY_CODE);
+        request.setCity(CITY);
+        request.setStreet(STREET);
+        request.setHouseNumber(HOUSE_NUMBER);
+
+        var result = search(request);
+        Assertions.assertEquals(request.getStreet(), result.getLocalised(Constants.STREET, LANGUAGE));
+        Assertions.assertEquals(request.getHouseNumber(), result.get(Constants.HOUSENUMBER));
+    }
+
     @Test
     void testHouse() {
         var request = new StructuredPhotonRequest(LANGUAGE);
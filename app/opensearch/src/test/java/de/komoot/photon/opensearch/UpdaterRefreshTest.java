@@ -0,0 +1,60 @@
+package de.komoot.photon.opensearch;
+
+import de.komoot.photon.PhotonDoc;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.Refresh;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.BulkResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UpdaterRefreshTest {
+    private OpenSearchClient client;
+    private Updater updater;
+
+    @BeforeEach
+    void setup() throws IOException {
+        client = mock(OpenSearchClient.class);
+        when(client.bulk(any(BulkRequest.class)))
+                .thenReturn(BulkResponse.of(b -> b.errors(false).took(1).items(List.of())));
+
+        updater = new Updater(client);
+        updater.setRefreshPolicy(RefreshPolicy.WAIT_FOR);
+    }
+
+    @Test
+    void testOnlyFinalFlushWaitsForRefresh() throws IOException {
+        updater.create(new PhotonDoc(1, "N", 1, "place", "city"), 0);
+        assertTrue(updater.flush());
+        updater.create(new PhotonDoc(2, "N", 2, "place", "city"), 0);
+        assertTrue(updater.flushFinal());
+        updater.finish();
+
+        final var requests = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(client, times(2)).bulk(requests.capture());
+        assertNull(requests.getAllValues().get(0).refresh());
+        assertEquals(Refresh.WaitFor, requests.getAllValues().get(1).refresh());
+
+        // No forced refresh of the index.
+        verify(client, never()).indices();
+    }
+
+    @Test
+    void testEmptyFinalFlushDoesNotCarryOver() throws IOException {
+        assertTrue(updater.flushFinal());
+        updater.create(new PhotonDoc(1, "N", 1, "place", "city"), 0);
+        assertTrue(updater.flush());
+
+        final var requests = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(client).bulk(requests.capture());
+        assertNull(requests.getValue().refresh());
+    }
+}
@@ -140,4 +140,29 @@ class UpdaterTest extends ESBaseTester {
         updater.finish();
         refresh();
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteSubsequentDocs() throws IOException {
+        setUpES();
+        Importer instance = makeImporter();
+        for (int i = 0; i < 6; ++i) {
+            instance.add(new PhotonDoc(4432, "N", 100, "building", "yes").houseNumber(String.valueOf(i)), i);
+        }
+        instance.add(new PhotonDoc(4433, "N", 101, "building", "yes").houseNumber("1"), 0);
+        instance.add(new PhotonDoc(4433, "N", 101, "building", "yes").houseNumber("2"), 1);
+        instance.finish();
+        refresh();
+
+        Updater updater = makeUpdater();
+        updater.deleteSubsequent(Map.of(4432L, 1, 4433L, 2, 4434L, 1));
+        updater.finish();
+        refresh();
+
+        assertNotNull(getById("4432"));
+        for (int i = 1; i < 6; ++i) {
+            assertNull(getById("4432." + i));
+        }
+        assertNotNull(getById("4433"));
+        assertNotNull(getById("4433.1"));
+    }
+}
@@ -4,18 +4,27 @@ import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
 import de.komoot.photon.nominatim.ImportThread;
 import de.komoot.photon.nominatim.NominatimImporter;
+import de.komoot.photon.nominatim.NominatimUpdateScheduler;
 import de.komoot.photon.nominatim.NominatimUpdater;
+import de.komoot.photon.searcher.CachingReverseHandler;
+import de.komoot.photon.searcher.CachingSearchHandler;
 import de.komoot.photon.searcher.ReverseHandler;
 import de.komoot.photon.searcher.SearchHandler;
 import de.komoot.photon.searcher.StructuredSearchHandler;
 import de.komoot.photon.utils.CorsFilter;
+import de.komoot.photon.utils.VirtualThreadPool;
 import org.slf4j.Logger;
 import spark.Request;
 import spark.Response;
+import spark.Route;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 
 import static spark.Spark.*;
 
@@ -25,6 +34,9 @@ import static spark.Spark.*;
 public class App {
     private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(App.class);
 
+    private static final int PROGRESS_REPORT_INTERVAL_SEC = 10;
+    private static final String CHECKPOINT_FILE = "photon_import_checkpoint.json";
+
     public static void main(String[] rawArgs) throws Exception {
         CommandLineArgs args = parseCommandLine(rawArgs);
 
@@ -54,6 +66,7 @@ public class App {
             LOGGER.info("Make sure that the ES cluster is ready, this might take some time.");
             esServer.waitForReady();
             LOGGER.info("ES cluster is now ready.");
+            esServer.setRefreshSettings(args.getUpdateRefresh(), args.getRefreshInterval(), args.getReplicas());
 
             if (args.isNominatimImport()) {
                 shutdownES = true;
@@ -61,6 +74,12 @@ public class App {
                 return;
             }
 
+            if (!args.getLoadJson().isEmpty()) {
+                shutdownES = true;
+                startJsonLoad(args, esServer);
+                return;
+            }
+
             // Working on an existing installation.
             // Update the index settings in case there are any changes.
             esServer.updateIndexSettings(args.getSynonymFile());
@@ -107,7 +126,8 @@ public class App {
     private static void startJsonDump(CommandLineArgs args) {
         try {
             final String filename = args.getJsonDump();
-            final JsonDumper jsonDumper = new JsonDumper(filename, args.getLanguages(), args.getExtraTags());
+            final Importer jsonDumper = Server.createJsonDumper(filename, args.getJsonShards(), args.getJsonGzip(),
+                                                                args.getLanguages(), args.getExtraTags());
 
             importFromDatabase(args, jsonDumper);
             LOGGER.info("Json dump was created: {}", filename);
@@ -121,29 +141,113 @@ public class App {
      * Read all data from a Nominatim database and import it into a Photon database.
      */
     private static void startNominatimImport(CommandLineArgs args, Server esServer) {
-        final var languages = initDatabase(args, esServer);
+        final Path checkpointFile = Path.of(args.getDataDirectory(), CHECKPOINT_FILE);
+        final ImportCheckpoint checkpoint;
+        final String[] languages;
+
+        if (args.isResume()) {
+            try {
+                checkpoint = ImportCheckpoint.load(checkpointFile);
+                languages = esServer.resumeIndex(checkpoint.getIndexName()).getLanguages();
+            } catch (IOException e) {
+                throw new UsageException("Cannot resume import: " + e.getMessage());
+            }
+            LOGGER.info("Resuming import into index '{}'.", checkpoint.getIndexName());
+        } else {
+            languages = initDatabase(args, esServer);
+            checkpoint = new ImportCheckpoint(checkpointFile, esServer.getImportIndexName(), args.isVersionedIndex());
+            checkpoint.save();
+        }
 
         LOGGER.info("Starting import from nominatim to photon with languages: {}", String.join(",", languages));
-        importFromDatabase(args, esServer.createImporter(languages, args.getExtraTags()));
+        final String[] countries = importFromDatabase(args, esServer.createImporter(languages, args.getExtraTags()), checkpoint);
+
+        final String[] incomplete = Arrays.stream(countries).filter(cc -> !checkpoint.isCompleted(cc)).toArray(String[]::new);
+        if (incomplete.length > 0) {
+            throw new UsageException("Import of countries " + String.join(",", incomplete)
+                    + " did not complete. Run the import again with -resume to finish it.");
+        }
+
+        if (checkpoint.isVersionedIndex()) {
+            try {
+                esServer.activateVersionedIndex(args.isForceMerge());
+            } catch (IOException e) {
+                throw new UsageException("Cannot switch to newly imported index: " + e.getMessage());
+            }
+        }
+
+        checkpoint.delete();
 
         LOGGER.info("Imported data from nominatim to photon with languages: {}", String.join(",", languages));
     }
 
+    /**
+     * Create a new Photon database from previously created json dumps.
+     */
+    private static void startJsonLoad(CommandLineArgs args, Server esServer) throws IOException {
+        final var dbProperties = createIndex(args, esServer, new Date());
+        LOGGER.info("Loading json dumps into photon with languages: {}", String.join(",", dbProperties.getLanguages()));
+
+        final ImportStatistics statistics = new ImportStatistics();
+        if (args.getImportProgressFile() != null) {
+            statistics.startReporting(Path.of(args.getImportProgressFile()), PROGRESS_REPORT_INTERVAL_SEC);
+        }
+
+        try {
+            final long numDocuments = esServer.loadJsonDump(args.getLoadJson(), args.getThreads(), statistics);
+            LOGGER.info("Loaded {} documents from json dumps.", numDocuments);
+        } finally {
+            statistics.stopReporting();
+        }
+
+        if (args.isVersionedIndex()) {
+            esServer.activateVersionedIndex(args.isForceMerge());
+        }
+    }
+
     private static String[] initDatabase(CommandLineArgs args, Server esServer) {
         final var nominatimConnector = new NominatimImporter(args.getHost(), args.getPort(), args.getDatabase(), args.getUser(), args.getPassword());
         final Date importDate = nominatimConnector.getLastImportDate();
 
         try {
-            // Clear out previous data.
-            var dbProperties = esServer.recreateIndex(args.getLanguages(), importDate, args.getSupportStructuredQueries());
-            return dbProperties.getLanguages();
+            return createIndex(args, esServer, importDate).getLanguages();
         } catch (IOException e) {
             throw new UsageException("Cannot setup index, elastic search config files not readable");
         }
     }
 
+    private static DatabaseProperties createIndex(CommandLineArgs args, Server esServer, Date importDate) throws IOException {
+        if (args.isVersionedIndex()) {
+            // Keep the previous data until the import is done.
+            return esServer.createVersionedIndex(args.getLanguages(), importDate, args.getSupportStructuredQueries());
+        }
+
+        // Clear out previous data.
+        return esServer.recreateIndex(args.getLanguages(), importDate, args.getSupportStructuredQueries());
+    }
+
     private static void importFromDatabase(CommandLineArgs args, Importer importer) {
+        importFromDatabase(args, importer, null);
+    }
+
+    /**
+     * Import the countries selected in the command line arguments.
+     *
+     * @param checkpoint When not null, countries already completed according to the
+     *                   checkpoint are skipped and newly completed countries are recorded.
+     *
+     * @return The countries that were imported in this run.
+     */
+    private static String[] importFromDatabase(CommandLineArgs args, Importer importer, ImportCheckpoint checkpoint) {
+        final ImportStatistics statistics = new ImportStatistics();
+        final Path progressFile = args.getImportProgressFile() == null ? null : Path.of(args.getImportProgressFile());
+        if (progressFile != null) {
+            statistics.startReporting(progressFile, PROGRESS_REPORT_INTERVAL_SEC);
+        }
+
         final var connector = new NominatimImporter(args.getHost(), args.getPort(), args.getDatabase(), args.getUser(), args.getPassword());
+        connector.setStatistics(statistics, progressFile != null);
+        connector.setAssemblyThreads(args.getAssemblyThreads());
         connector.prepareDatabase();
         connector.loadCountryNames();
 
@@ -155,14 +259,26 @@ public class App {
             countries = Arrays.stream(countries).map(String::trim).filter(s -> !s.isBlank()).toArray(String[]::new);
         }
 
+        if (checkpoint != null) {
+            final int numCountries = countries.length;
+            countries = Arrays.stream(countries).filter(cc -> !checkpoint.isCompleted(cc)).toArray(String[]::new);
+            if (countries.length < numCountries) {
+                LOGGER.info("Skipping {} countries that were already imported.", numCountries - countries.length);
+            }
+        }
+
         final int numThreads = args.getThreads();
-        ImportThread importThread = new ImportThread(importer);
+        ImportThread importThread = new ImportThread(importer, statistics);
+        final List<NominatimImporter> connectors = new ArrayList<>();
+        connectors.add(connector);
 
         try {
 
             if (numThreads == 1) {
                 for (var country : countries) {
+                    startCountry(importThread, checkpoint, country);
                     connector.readCountry(country, importThread);
+                    addCheckpoint(importThread, checkpoint, country);
                 }
             } else {
                 final Queue<String> todolist = new ConcurrentLinkedQueue<>(List.of(countries));
@@ -173,7 +289,10 @@ public class App {
                     final NominatimImporter threadConnector;
                     if (i > 0) {
                         threadConnector = new NominatimImporter(args.getHost(), args.getPort(), args.getDatabase(), args.getUser(), args.getPassword());
+                        threadConnector.setStatistics(statistics, progressFile != null);
+                        threadConnector.setAssemblyThreads(args.getAssemblyThreads());
                         threadConnector.loadCountryNames();
+                        connectors.add(threadConnector);
                     } else {
                         threadConnector = connector;
                     }
@@ -182,7 +301,9 @@ public class App {
                         String nextCc = todolist.poll();
                         while (nextCc != null) {
                             LOGGER.info("Thread {}: reading country '{}'", threadno, nextCc);
+                            startCountry(importThread, checkpoint, nextCc);
                             threadConnector.readCountry(nextCc, importThread);
+                            addCheckpoint(importThread, checkpoint, nextCc);
                             nextCc = todolist.poll();
                         }
                     };
@@ -205,18 +326,35 @@ public class App {
             }
         } finally {
             importThread.finish();
+            connectors.forEach(NominatimImporter::close);
+            statistics.stopReporting();
         }
 
+        return countries;
     }
 
 
+    private static void startCountry(ImportThread importThread, ImportCheckpoint checkpoint, String countryCode) {
+        if (checkpoint != null) {
+            importThread.startCountry(countryCode);
+        }
+    }
+
+    private static void addCheckpoint(ImportThread importThread, ImportCheckpoint checkpoint, String countryCode) {
+        if (checkpoint != null) {
+            importThread.addCheckpoint(countryCode, () -> checkpoint.markCompleted(countryCode));
+        }
+    }
+
     private static void startNominatimUpdateInit(CommandLineArgs args) {
         NominatimUpdater nominatimUpdater = new NominatimUpdater(args.getHost(), args.getPort(), args.getDatabase(), args.getUser(), args.getPassword());
         nominatimUpdater.initUpdates(args.getNominatimUpdateInit());
     }
 
     private static void startNominatimUpdate(NominatimUpdater nominatimUpdater, Server esServer)  {
-        nominatimUpdater.update();
+        if (!nominatimUpdater.update()) {
+            throw new UsageException("Not all updates could be applied. The import date of the Photon database was not changed.");
+        }
 
         try {
             DatabaseProperties dbProperties = esServer.loadFromDatabase();
@@ -237,10 +375,24 @@ public class App {
         DatabaseProperties dbProperties = server.loadFromDatabase();
 
         NominatimUpdater nominatimUpdater = new NominatimUpdater(args.getHost(), args.getPort(), args.getDatabase(), args.getUser(), args.getPassword());
-        nominatimUpdater.setUpdater(server.createUpdater(dbProperties.getLanguages(), args.getExtraTags()));
+        final List<Updater> updaters = new ArrayList<>();
+        for (int i = 0; i < args.getUpdateThreads(); ++i) {
+            updaters.add(server.createUpdater(dbProperties.getLanguages(), args.getExtraTags()));
+        }
+        nominatimUpdater.setUpdaters(updaters);
+        if (nominatimUpdater.isSetUpForUpdates()) {
+            nominatimUpdater.prepareUpdateLog();
+        }
         return nominatimUpdater;
     }
 
+    /**
+     * Apply the limit for requests in progress to a geocoding route.
+     */
+    private static Route limited(Route route, Semaphore permits) {
+        return permits == null ? route : new LimitedRoute(route, permits);
+    }
+
     /**
      * Start API server to accept search requests via http.
      */
@@ -251,6 +403,11 @@ public class App {
             dbProperties.restrictLanguages(args.getLanguages());
         }
 
+        if (args.isVirtualThreads()) {
+            EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY,
+                    new EmbeddedJettyFactory().withThreadPool(new VirtualThreadPool()));
+        }
+
         port(args.getListenPort());
         ipAddress(args.getListenIp());
 
@@ -265,42 +422,80 @@ public class App {
         // setup search API
         String[] langs = dbProperties.getLanguages();
 
+        // Shared limit for geocoding requests in progress, null for no limit.
+        final Semaphore inFlight = args.getMaxInflightRequests() > 0
+                ? new Semaphore(args.getMaxInflightRequests()) : null;
+
+        // Caches that must be cleared when the data changes.
+        final List<Runnable> cacheInvalidators = new ArrayList<>();
+
+        server.setSearchFallback(args.getSearchFallback());
         SearchHandler searchHandler = server.createSearchHandler(langs, args.getQueryTimeout());
-        get("api", new SearchRequestHandler("api", searchHandler, langs, args.getDefaultLanguage(), args.getMaxResults()));
-        get("api/", new SearchRequestHandler("api/", searchHandler, langs, args.getDefaultLanguage(), args.getMaxResults()));
+        if (args.getSearchCacheSizeMb() > 0) {
+            final CachingSearchHandler searchCache = new CachingSearchHandler(
+                    searchHandler, args.getSearchCacheSizeMb(), args.getSearchCacheTtl());
+            cacheInvalidators.add(searchCache::invalidateAll);
+            searchHandler = searchCache;
+        }
+        get("api", limited(new SearchRequestHandler("api", searchHandler, langs, args.getDefaultLanguage(), args.getMaxResults()), inFlight));
+        get("api/", limited(new SearchRequestHandler("api/", searchHandler, langs, args.getDefaultLanguage(), args.getMaxResults()), inFlight));
+        post("api/batch", limited(new BatchSearchRequestHandler("api/batch", searchHandler, langs, args.getDefaultLanguage(), args.getMaxResults()), inFlight));
 
         if (dbProperties.getSupportStructuredQueries()) {
             StructuredSearchHandler structured = server.createStructuredSearchHandler(langs, args.getQueryTimeout());
-            get("structured", new StructuredSearchRequestHandler("structured", structured, langs, args.getDefaultLanguage(), args.getMaxResults()));
-            get("structured/", new StructuredSearchRequestHandler("structured/", structured, langs, args.getDefaultLanguage(), args.getMaxResults()));
+            get("structured", limited(new StructuredSearchRequestHandler("structured", structured, langs, args.getDefaultLanguage(), args.getMaxResults()), inFlight));
+            get("structured/", limited(new StructuredSearchRequestHandler("structured/", structured, langs, args.getDefaultLanguage(), args.getMaxResults()), inFlight));
         }
 
         ReverseHandler reverseHandler = server.createReverseHandler(args.getQueryTimeout());
-        get("reverse", new ReverseSearchRequestHandler("reverse", reverseHandler, dbProperties.getLanguages(),
-                args.getDefaultLanguage(), args.getMaxReverseResults()));
-        get("reverse/", new ReverseSearchRequestHandler("reverse/", reverseHandler, dbProperties.getLanguages(),
-                args.getDefaultLanguage(), args.getMaxReverseResults()));
+        if (args.getReverseCacheSizeMb() > 0) {
+            final CachingReverseHandler reverseCache = new CachingReverseHandler(
+                    reverseHandler, args.getReverseCacheSizeMb(), args.getSearchCacheTtl());
+            cacheInvalidators.add(reverseCache::invalidateAll);
+            reverseHandler = reverseCache;
+        }
+        get("reverse", limited(new ReverseSearchRequestHandler("reverse", reverseHandler, dbProperties.getLanguages(),
+                args.getDefaultLanguage(), args.getMaxReverseResults()), inFlight));
+        get("reverse/", limited(new ReverseSearchRequestHandler("reverse/", reverseHandler, dbProperties.getLanguages(),
+                args.getDefaultLanguage(), args.getMaxReverseResults()), inFlight));
+        post("reverse/batch", limited(new BatchReverseRequestHandler("reverse/batch", reverseHandler, dbProperties.getLanguages(),
+                args.getDefaultLanguage(), args.getMaxReverseResults(), args.getBatchThreads()), inFlight));
         
         get("status", new StatusRequestHandler("status", server));
         get("status/", new StatusRequestHandler("status/", server));
 
-        if (args.isEnableUpdateApi()) {
-            // setup update API
+        if (args.isEnableUpdateApi() || args.isContinuousUpdates()) {
             final NominatimUpdater nominatimUpdater = setupNominatimUpdater(args, server);
             if (!nominatimUpdater.isSetUpForUpdates()) {
-                throw new UsageException("Update API enabled, but Nominatim database is not prepared. Run -nominatim-update-init-for first.");
+                throw new UsageException("Updates enabled, but Nominatim database is not prepared. Run -nominatim-update-init-for first.");
             }
-            get("/nominatim-update/status", (Request request, Response response) -> {
-               if (nominatimUpdater.isBusy()) {
-                   return "\"BUSY\"";
-               }
-
-               return "\"OK\"";
-            });
-            get("/nominatim-update", (Request request, Response response) -> {
-                new Thread(()-> App.startNominatimUpdate(nominatimUpdater, server)).start();
-                return "\"nominatim update started (more information in console output) ...\"";
+            final NominatimUpdateScheduler scheduler = new NominatimUpdateScheduler(nominatimUpdater, () -> {
+                try {
+                    App.startNominatimUpdate(nominatimUpdater, server);
+                } finally {
+                    // Also drop the caches when the update failed half-way.
+                    cacheInvalidators.forEach(Runnable::run);
+                }
             });
+
+            if (args.isContinuousUpdates()) {
+                scheduler.start();
+            }
+
+            if (args.isEnableUpdateApi()) {
+                // setup update API
+                get("/nominatim-update/status", (Request request, Response response) -> {
+                    if (nominatimUpdater.isBusy() || scheduler.isUpdatePending()) {
+                        return "\"BUSY\"";
+                    }
+
+                    return "\"OK\"";
+                });
+                get("/nominatim-update", (Request request, Response response) -> {
+                    scheduler.requestUpdate();
+                    return "\"nominatim update started (more information in console output) ...\"";
+                });
+            }
         }
     }
 }
@@ -0,0 +1,224 @@
+package de.komoot.photon;
+
+import de.komoot.photon.query.BadRequestException;
+import de.komoot.photon.query.JsonRequestParameters;
+import de.komoot.photon.query.RequestParameters;
+import de.komoot.photon.query.ReverseRequest;
+import de.komoot.photon.query.ReverseRequestFactory;
+import de.komoot.photon.query.WebRequestParameters;
+import de.komoot.photon.searcher.FailedResults;
+import de.komoot.photon.searcher.GeocodeJsonWriter;
+import de.komoot.photon.searcher.PhotonResult;
+import de.komoot.photon.searcher.ReverseHandler;
+import de.komoot.photon.searcher.TagFilter;
+import org.json.JSONException;
+import org.json.JSONObject;
+import spark.Request;
+import spark.Response;
+import spark.RouteImpl;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Webserver route for batches of reverse geocoding requests.
+ *
+ * The body of the request contains one reverse request per line, each given
+ * as a JSON object with the same parameters as for the reverse API. The
+ * response has one GeocodeJSON result per line in the order of the
+ * requests. Lines with invalid requests or requests which failed in the
+ * database get an object with an error message instead.
+ *
+ * The lines are processed in chunks. Within a chunk, requests for nearly the
+ * same location (equal to about a metre) and with the same parameters are
+ * sent to the database only once. Chunks are processed in parallel by a
+ * thread pool shared between all batch requests, which limits the load on
+ * the database. The results are streamed back in order while the remaining
+ * lines are read.
+ */
+public class BatchReverseRequestHandler extends RouteImpl {
+    private static final int CHUNK_SIZE = 200;
+    // Locations are considered the same when equal to 5 decimal places.
+    private static final double LOCATION_PRECISION = 1e5;
+
+    private final ReverseRequestFactory reverseRequestFactory;
+    private final ReverseHandler requestHandler;
+    private final ExecutorService executor;
+    private final int maxChunksInFlight;
+
+    BatchReverseRequestHandler(String path, ReverseHandler dbHandler, String[] languages, String defaultLanguage,
+                               int maxResults, int numThreads) {
+        super(path);
+        List<String> supportedLanguages = Arrays.asList(languages);
+        this.reverseRequestFactory = new ReverseRequestFactory(supportedLanguages, defaultLanguage, maxResults);
+        this.requestHandler = dbHandler;
+        this.maxChunksInFlight = numThreads;
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread thread = new Thread(r, "reverse-batch-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String handle(Request request, Response response) throws IOException {
+        final RequestParameters outerRequest = new WebRequestParameters(request);
+        response.type("application/x-ndjson; charset=UTF-8");
+
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.raw().getInputStream(), StandardCharsets.UTF_8));
+        final OutputStream out = new BufferedOutputStream(response.raw().getOutputStream());
+
+        final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        try {
+            List<String> lines = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                lines.add(line);
+                if (lines.size() >= CHUNK_SIZE) {
+                    final List<String> chunk = lines;
+                    pending.add(executor.submit(() -> processChunk(chunk, outerRequest)));
+                    lines = new ArrayList<>(CHUNK_SIZE);
+
+                    if (pending.size() >= maxChunksInFlight) {
+                        writeChunk(pending.poll(), out);
+                    }
+                }
+            }
+
+            if (!lines.isEmpty()) {
+                final List<String> chunk = lines;
+                pending.add(executor.submit(() -> processChunk(chunk, outerRequest)));
+            }
+
+            while (!pending.isEmpty()) {
+                writeChunk(pending.poll(), out);
+            }
+        } finally {
+            // Abort the remaining work, when the client went away or the database failed.
+            pending.forEach(f -> f.cancel(true));
+        }
+
+        return "";
+    }
+
+    private byte[] processChunk(List<String> lines, RequestParameters outerRequest) throws IOException {
+        final List<ReverseRequest> requests = new ArrayList<>(lines.size());
+        final List<String> errors = new ArrayList<>(lines.size());
+        final Map<DedupeKey, Integer> uniqueIds = new HashMap<>();
+        final List<ReverseRequest> uniqueRequests = new ArrayList<>();
+        final int[] uniqueIdx = new int[lines.size()];
+
+        for (int i = 0; i < lines.size(); ++i) {
+            try {
+                final ReverseRequest request = reverseRequestFactory.create(
+                        new JsonRequestParameters(new JSONObject(lines.get(i)), outerRequest));
+                requests.add(request);
+                errors.add(null);
+                uniqueIdx[i] = uniqueIds.computeIfAbsent(new DedupeKey(request), k -> {
+                    uniqueRequests.add(request);
+                    return uniqueRequests.size() - 1;
+                });
+            } catch (BadRequestException | JSONException e) {
+                requests.add(null);
+                errors.add(e.getMessage());
+            }
+        }
+
+        final List<List<PhotonResult>> results = requestHandler.reverseBatch(uniqueRequests);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(lines.size() * 512);
+        for (int i = 0; i < lines.size(); ++i) {
+            final ReverseRequest request = requests.get(i);
+            if (request == null) {
+                output.write(new JSONObject().put("message", errors.get(i)).toString().getBytes(StandardCharsets.UTF_8));
+            } else if (results.get(uniqueIdx[i]) instanceof FailedResults) {
+                final String message = ((FailedResults) results.get(uniqueIdx[i])).getMessage();
+                output.write(new JSONObject().put("message", message).toString().getBytes(StandardCharsets.UTF_8));
+            } else {
+                final List<PhotonResult> filtered = ReverseSearchRequestHandler.filterResults(request, results.get(uniqueIdx[i]));
+                new GeocodeJsonWriter(request.getLanguage()).write(filtered, output);
+            }
+            output.write('\n');
+        }
+
+        return output.toByteArray();
+    }
+
+    private static void writeChunk(Future<byte[]> chunk, OutputStream out) throws IOException {
+        final byte[] lines;
+        try {
+            lines = chunk.get();
+        } catch (InterruptedException e) {
+            // Restore interrupted state.
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for results", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+
+        out.write(lines);
+        out.flush();
+    }
+
+    private static final class DedupeKey {
+        private final long lon;
+        private final long lat;
+        private final String language;
+        private final double radius;
+        private final int limit;
+        private final String queryStringFilter;
+        private final boolean locationDistanceSort;
+        private final Set<String> layerFilters;
+        private final List<TagFilter> osmTagFilters;
+
+        DedupeKey(ReverseRequest request) {
+            lon = Math.round(request.getLocation().getX() * LOCATION_PRECISION);
+            lat = Math.round(request.getLocation().getY() * LOCATION_PRECISION);
+            language = request.getLanguage();
+            radius = request.getRadius();
+            limit = request.getLimit();
+            queryStringFilter = request.getQueryStringFilter();
+            locationDistanceSort = request.getLocationDistanceSort();
+            layerFilters = request.getLayerFilters();
+            osmTagFilters = request.getOsmTagFilters();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            DedupeKey other = (DedupeKey) o;
+            return lon == other.lon
+                    && lat == other.lat
+                    && Double.compare(radius, other.radius) == 0
+                    && limit == other.limit
+                    && locationDistanceSort == other.locationDistanceSort
+                    && Objects.equals(language, other.language)
+                    && Objects.equals(queryStringFilter, other.queryStringFilter)
+                    && layerFilters.equals(other.layerFilters)
+                    && osmTagFilters.equals(other.osmTagFilters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lon, lat, language, radius, limit, queryStringFilter, locationDistanceSort,
+                    layerFilters, osmTagFilters);
+        }
+    }
+}
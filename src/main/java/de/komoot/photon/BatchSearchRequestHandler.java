@@ -0,0 +1,118 @@
+package de.komoot.photon;
+
+import de.komoot.photon.query.BadRequestException;
+import de.komoot.photon.query.JsonRequestParameters;
+import de.komoot.photon.query.PhotonRequest;
+import de.komoot.photon.query.PhotonRequestFactory;
+import de.komoot.photon.query.RequestParameters;
+import de.komoot.photon.query.WebRequestParameters;
+import de.komoot.photon.searcher.FailedResults;
+import de.komoot.photon.searcher.GeocodeJsonWriter;
+import de.komoot.photon.searcher.PhotonResult;
+import de.komoot.photon.searcher.SearchHandler;
+import org.json.JSONException;
+import org.json.JSONObject;
+import spark.Request;
+import spark.Response;
+import spark.RouteImpl;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Webserver route for batches of forward geocoding requests.
+ *
+ * The body of the request contains one search request per line, each given
+ * as a JSON object with the same parameters as for the search API. The
+ * response has one GeocodeJSON result per line in the order of the
+ * requests. Lines with invalid requests or requests which failed in the
+ * database get an object with an error message instead.
+ *
+ * Requests are sent to the database in chunks and the results are streamed
+ * back while the remaining requests are processed.
+ */
+public class BatchSearchRequestHandler extends RouteImpl {
+    private static final int CHUNK_SIZE = 100;
+
+    private final PhotonRequestFactory photonRequestFactory;
+    private final SearchHandler requestHandler;
+
+    BatchSearchRequestHandler(String path, SearchHandler dbHandler, String[] languages, String defaultLanguage, int maxResults) {
+        super(path);
+        List<String> supportedLanguages = Arrays.asList(languages);
+        this.photonRequestFactory = new PhotonRequestFactory(supportedLanguages, defaultLanguage, maxResults);
+        this.requestHandler = dbHandler;
+    }
+
+    @Override
+    public String handle(Request request, Response response) throws IOException {
+        final RequestParameters outerRequest = new WebRequestParameters(request);
+        response.type("application/x-ndjson; charset=UTF-8");
+
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.raw().getInputStream(), StandardCharsets.UTF_8));
+        final OutputStream out = new BufferedOutputStream(response.raw().getOutputStream());
+
+        // Requests of the current chunk, null for lines with errors.
+        final List<PhotonRequest> requests = new ArrayList<>(CHUNK_SIZE);
+        final List<String> errors = new ArrayList<>(CHUNK_SIZE);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                requests.add(photonRequestFactory.create(new JsonRequestParameters(new JSONObject(line), outerRequest)));
+                errors.add(null);
+            } catch (BadRequestException | JSONException e) {
+                requests.add(null);
+                errors.add(e.getMessage());
+            }
+
+            if (requests.size() >= CHUNK_SIZE) {
+                writeChunk(requests, errors, out);
+            }
+        }
+
+        writeChunk(requests, errors, out);
+        out.flush();
+
+        return "";
+    }
+
+    private void writeChunk(List<PhotonRequest> requests, List<String> errors, OutputStream out) throws IOException {
+        final List<PhotonRequest> validRequests = new ArrayList<>(requests.size());
+        for (PhotonRequest request : requests) {
+            if (request != null) {
+                validRequests.add(request);
+            }
+        }
+
+        final List<List<PhotonResult>> results = requestHandler.searchBatch(validRequests);
+
+        int resultIdx = 0;
+        for (int i = 0; i < requests.size(); ++i) {
+            final PhotonRequest request = requests.get(i);
+            if (request == null) {
+                out.write(new JSONObject().put("message", errors.get(i)).toString().getBytes(StandardCharsets.UTF_8));
+            } else if (results.get(resultIdx) instanceof FailedResults) {
+                final String message = ((FailedResults) results.get(resultIdx++)).getMessage();
+                out.write(new JSONObject().put("message", message).toString().getBytes(StandardCharsets.UTF_8));
+            } else {
+                final List<PhotonResult> filtered = SearchRequestHandler.filterResults(request, results.get(resultIdx++));
+                // Debug output is not available for batches, it cannot be written as a single line.
+                new GeocodeJsonWriter(request.getLanguage()).write(filtered, out);
+            }
+            out.write('\n');
+        }
+        out.flush();
+
+        requests.clear();
+        errors.clear();
+    }
+}
@@ -17,6 +17,21 @@ public class CommandLineArgs {
     @Parameter(names = "-j", description = "Number of threads to use for import.")
     private int threads = 1;
 
+    @Parameter(names = "-assembly-threads", description = "[import-only] Number of additional threads per database connection that assemble documents from the rows read (0 to assemble in the reading thread).")
+    private int assemblyThreads = 0;
+
+    @Parameter(names = "-update-threads", description = "[update-only] Number of threads applying updates in parallel (max 8).")
+    private int updateThreads = 1;
+
+    @Parameter(names = "-update-refresh", description = "[update-only] How to make updates visible: 'index' refreshes the Photon index after each update, 'wait_for' waits for the next scheduled refresh, 'none' does not wait.")
+    private String updateRefresh = "index";
+
+    @Parameter(names = "-refresh-interval", description = "Refresh interval of the index to set after an import.")
+    private String refreshInterval = "15s";
+
+    @Parameter(names = "-replicas", description = "Number of replicas of the index to set after an import.")
+    private int replicas = 1;
+
     @Parameter(names = "-structured", description = "Enable support for structured queries.")
     private boolean supportStructuredQueries = false;
 
@@ -29,6 +44,15 @@ public class CommandLineArgs {
     @Parameter(names = "-nominatim-import", description = "Import nominatim database into photon (deleting the previous index).")
     private boolean nominatimImport = false;
 
+    @Parameter(names = "-versioned-index", description = "[import-only] Import into a new index and switch over to it only when the import has finished, so that a running Photon can keep serving requests from the old index (OpenSearch only).")
+    private boolean versionedIndex = false;
+
+    @Parameter(names = "-force-merge", description = "[import-only] Merge the new index into a single segment before switching over to it. Only used with -versioned-index.")
+    private boolean forceMerge = false;
+
+    @Parameter(names = "-resume", description = "[import-only] Continue an interrupted -nominatim-import, skipping the countries that were already imported completely.")
+    private boolean resume = false;
+
     @Parameter(names = "-nominatim-update-init-for", description = "Set up tracking of updates in the Nominatim database for the given user and exit.")
     private String nominatimUpdateInit = null;
 
@@ -44,6 +68,9 @@ public class CommandLineArgs {
     @Parameter(names = "-country-codes", description = "[import-only] Comma-separated list of country codes for countries the importer should import, comma separated. An empty list means the full database is imported.")
     private List<String> countryCodes = new ArrayList<>();
 
+    @Parameter(names = "-import-progress-file", description = "[import-only] Periodically write statistics about the import progress as JSON to the given file.")
+    private String importProgressFile = null;
+
     @Parameter(names = "-extra-tags", description = "Comma-separated list of additional tags to save for each place.")
     private List<String> extraTags = new ArrayList<>();
 
@@ -56,6 +83,15 @@ public class CommandLineArgs {
     @Parameter(names = "-json", description = "Read from nominatim database and dump it to the given file in a json-like format (use '-' for dumping to stdout).")
     private String jsonDump = null;
 
+    @Parameter(names = "-json-shards", description = "Write the json dump into the given number of files in parallel (0 for a single file). The value of -json is used as base name.")
+    private int jsonShards = 0;
+
+    @Parameter(names = "-json-gzip", description = "Compress the files of a sharded json dump with gzip.")
+    private boolean jsonGzip = false;
+
+    @Parameter(names = "-load-json", description = "Create a new index from the given comma-separated list of json dump files instead of reading from a Nominatim database (deleting the previous index).")
+    private List<String> loadJson = new ArrayList<>();
+
     @Parameter(names = "-host", description = "Hostname of the PostgreSQL database.")
     private String host = "127.0.0.1";
 
@@ -89,6 +125,9 @@ public class CommandLineArgs {
     @Parameter(names = "-enable-update-api", description = "Enable the additional endpoint /nominatim-update, which allows to trigger updates from a nominatim database")
     private boolean enableUpdateApi = false;
 
+    @Parameter(names = "-continuous-updates", description = "Watch the nominatim database for changes and apply them automatically while serving the API.")
+    private boolean continuousUpdates = false;
+
     @Parameter(names = "-h", description = "Show help / usage")
     private boolean usage = false;
 
@@ -98,6 +137,27 @@ public class CommandLineArgs {
     @Parameter(names = "-max-reverse-results", description = "The maximum possible 'limit' parameter for reverse geocoding searches")
     private int maxReverseResults = 50;
 
+    @Parameter(names = "-batch-threads", description = "Number of database requests the batch reverse endpoint may run in parallel")
+    private int batchThreads = 4;
+
+    @Parameter(names = "-search-cache-size-mb", description = "Memory in megabytes to use for caching search results (0 disables the cache)")
+    private int searchCacheSizeMb = 0;
+
+    @Parameter(names = "-reverse-cache-size-mb", description = "Memory in megabytes to use for caching places around recent reverse geocoding requests (0 disables the cache)")
+    private int reverseCacheSizeMb = 0;
+
+    @Parameter(names = "-search-cache-ttl", description = "Time in seconds after which cached search and reverse results expire")
+    private int searchCacheTtl = 300;
+
+    @Parameter(names = "-search-fallback", description = "When to send the lenient query of a forward search: 'sequential' after the strict query found nothing, 'parallel' always together with the strict query, 'adaptive' together only when the strict query is expected to fail.")
+    private String searchFallback = "sequential";
+
+    @Parameter(names = "-max-inflight-requests", description = "Maximum number of geocoding requests processed at the same time, further requests are rejected with 503 (0 for no limit)")
+    private int maxInflightRequests = 0;
+
+    @Parameter(names = "-virtual-threads", description = "Process web requests on virtual threads instead of a fixed pool of threads (needs Java 21 or newer)")
+    private boolean virtualThreads = false;
+
     public String[] getLanguages(boolean useDefaultIfEmpty) {
         if (useDefaultIfEmpty && languages.isEmpty()) {
             return new String[]{"en", "de", "fr", "it"};
@@ -126,6 +186,38 @@ public class CommandLineArgs {
         return this.nominatimImport;
     }
 
+    public int getAssemblyThreads() {
+        return this.assemblyThreads;
+    }
+
+    public int getUpdateThreads() {
+        return Integer.min(8, Integer.max(1, updateThreads));
+    }
+
+    public String getUpdateRefresh() {
+        return updateRefresh;
+    }
+
+    public String getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public int getReplicas() {
+        return replicas;
+    }
+
+    public boolean isResume() {
+        return this.resume;
+    }
+
+    public boolean isVersionedIndex() {
+        return this.versionedIndex;
+    }
+
+    public boolean isForceMerge() {
+        return this.forceMerge;
+    }
+
     public String getNominatimUpdateInit() {
         return this.nominatimUpdateInit;
     }
@@ -142,6 +234,10 @@ public class CommandLineArgs {
         return this.countryCodes.toArray(new String[0]);
     }
 
+    public String getImportProgressFile() {
+        return this.importProgressFile;
+    }
+
     public String[] getExtraTags() {
         return this.extraTags.toArray(new String[0]);
     }
@@ -158,6 +254,18 @@ public class CommandLineArgs {
         return this.jsonDump;
     }
 
+    public int getJsonShards() {
+        return this.jsonShards;
+    }
+
+    public boolean getJsonGzip() {
+        return this.jsonGzip;
+    }
+
+    public List<String> getLoadJson() {
+        return this.loadJson;
+    }
+
     public String getHost() {
         return this.host;
     }
@@ -202,6 +310,10 @@ public class CommandLineArgs {
         return this.enableUpdateApi;
     }
 
+    public boolean isContinuousUpdates() {
+        return this.continuousUpdates;
+    }
+
     public boolean isUsage() {
         return this.usage;
     }
@@ -215,5 +327,32 @@ public class CommandLineArgs {
     public int getMaxResults() {
         return maxResults;
     }
-}
 
+    public int getBatchThreads() {
+        return Integer.max(1, batchThreads);
+    }
+
+    public int getSearchCacheSizeMb() {
+        return Integer.max(0, searchCacheSizeMb);
+    }
+
+    public int getReverseCacheSizeMb() {
+        return Integer.max(0, reverseCacheSizeMb);
+    }
+
+    public int getSearchCacheTtl() {
+        return Integer.max(1, searchCacheTtl);
+    }
+
+    public String getSearchFallback() {
+        return searchFallback;
+    }
+
+    public int getMaxInflightRequests() {
+        return Integer.max(0, maxInflightRequests);
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+}
@@ -0,0 +1,102 @@
+package de.komoot.photon;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Progress of a running import from a Nominatim database, persisted in a file.
+ *
+ * A country is only recorded as completed after all its documents have
+ * been acknowledged by the database. An interrupted import can then be
+ * resumed by importing only the countries that are not yet completed.
+ */
+public class ImportCheckpoint {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(ImportCheckpoint.class);
+
+    private final Path file;
+    private final String indexName;
+    private final boolean versionedIndex;
+    private final Set<String> completedCountries = new LinkedHashSet<>();
+
+    public ImportCheckpoint(Path file, String indexName, boolean versionedIndex) {
+        this.file = file;
+        this.indexName = indexName;
+        this.versionedIndex = versionedIndex;
+    }
+
+    /**
+     * Read the checkpoint of a previously started import.
+     */
+    public static ImportCheckpoint load(Path file) throws IOException {
+        try {
+            final var json = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+            final var checkpoint = new ImportCheckpoint(file, json.getString("index"), json.optBoolean("versioned_index"));
+
+            final JSONArray countries = json.getJSONArray("completed_countries");
+            for (int i = 0; i < countries.length(); ++i) {
+                checkpoint.completedCountries.add(countries.getString(i));
+            }
+
+            return checkpoint;
+        } catch (JSONException e) {
+            throw new IOException("Invalid checkpoint file " + file + ": " + e.getMessage());
+        }
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public boolean isVersionedIndex() {
+        return versionedIndex;
+    }
+
+    public synchronized boolean isCompleted(String countryCode) {
+        return completedCountries.contains(countryCode);
+    }
+
+    /**
+     * Record the country as completely imported and save the checkpoint.
+     */
+    public synchronized void markCompleted(String countryCode) {
+        completedCountries.add(countryCode);
+        save();
+        LOGGER.info("Checkpoint: country '{}' completed ({} countries done).", countryCode, completedCountries.size());
+    }
+
+    public synchronized void save() {
+        final JSONObject json = new JSONObject()
+                .put("index", indexName)
+                .put("versioned_index", versionedIndex)
+                .put("completed_countries", new JSONArray(completedCountries));
+
+        try {
+            final Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmpFile, json.toString(2).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot write import checkpoint file {}", file, e);
+        }
+    }
+
+    /**
+     * Remove the checkpoint file after the import has finished.
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot remove import checkpoint file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package de.komoot.photon;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and latency histograms for the different stages of an import.
+ *
+ * All counters are thread-safe and cheap enough to be updated for every row.
+ * When a progress file is set, the statistics are periodically written
+ * out as JSON, so that the progress of a running import can be monitored.
+ */
+public class ImportStatistics {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(ImportStatistics.class);
+
+    /**
+     * Kinds of rows read from the Nominatim database.
+     */
+    public enum RowType {
+        PLACE("placex"),
+        POI("placex_rank30"),
+        INTERPOLATION("osmline");
+
+        private final String name;
+
+        RowType(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final long startMillis = System.currentTimeMillis();
+    private final Map<RowType, LongAdder> rowsFetched = new EnumMap<>(RowType.class);
+    private final LongAdder addressCacheHits = new LongAdder();
+    private final LongAdder addressCacheMisses = new LongAdder();
+    private final LongAdder documentsQueued = new LongAdder();
+    private final LongAdder bulkRequests = new LongAdder();
+    private final LongAdder bulkDocuments = new LongAdder();
+    private final LongAdder bulkRejected = new LongAdder();
+    private final LatencyHistogram bulkLatency = new LatencyHistogram();
+    private final LatencyHistogram assemblyLatency = new LatencyHistogram();
+    private final Map<String, CountryProgress> countries = new ConcurrentSkipListMap<>();
+
+    private IntSupplier queueDepth = () -> 0;
+    private ScheduledExecutorService reporter = null;
+    private Path progressFile = null;
+
+    public ImportStatistics() {
+        for (RowType type : RowType.values()) {
+            rowsFetched.put(type, new LongAdder());
+        }
+    }
+
+    /**
+     * Start writing the statistics to the given file in regular intervals.
+     */
+    public void startReporting(Path progressFile, int intervalSeconds) {
+        this.progressFile = progressFile;
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "import-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(this::writeProgressFile,
+                intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        LOGGER.info("Writing import progress to {} every {}s.", progressFile, intervalSeconds);
+    }
+
+    /**
+     * Stop periodic reporting. The progress file is written one last time.
+     */
+    public void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+            writeProgressFile();
+        }
+    }
+
+    public void setQueueDepthSupplier(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     * Register the start of the import of a country.
+     *
+     * @param countryCode Country code of the country, the empty string for places outside a country.
+     * @param estimatedRows Expected number of rows to be read or a negative number if unknown.
+     *
+     * @return Progress tracker for the country.
+     */
+    public CountryProgress startCountry(String countryCode, long estimatedRows) {
+        final var progress = new CountryProgress(estimatedRows);
+        countries.put(countryCode, progress);
+        return progress;
+    }
+
+    public void countRow(RowType type, CountryProgress country) {
+        rowsFetched.get(type).increment();
+        country.rowsFetched.increment();
+    }
+
+    public void countAddressLookup(boolean hit) {
+        (hit ? addressCacheHits : addressCacheMisses).increment();
+    }
+
+    public void countQueuedDocument() {
+        documentsQueued.increment();
+    }
+
+    public long getQueuedDocuments() {
+        return documentsQueued.sum();
+    }
+
+    public void addAssemblyTime(long nanos) {
+        assemblyLatency.add(nanos / 1000);
+    }
+
+    /**
+     * Record the result of a bulk request sent to the database.
+     *
+     * @param numDocuments Number of documents in the request.
+     * @param numRejected Number of documents rejected by the database.
+     * @param millis Time in milliseconds until the request was acknowledged.
+     */
+    public void addBulkRequest(int numDocuments, int numRejected, long millis) {
+        bulkRequests.increment();
+        bulkDocuments.add(numDocuments);
+        bulkRejected.add(numRejected);
+        bulkLatency.add(millis);
+    }
+
+    public JSONObject toJson() {
+        final long now = System.currentTimeMillis();
+        final double elapsedSec = Math.max(1, now - startMillis) / 1000.0;
+
+        final JSONObject rows = new JSONObject();
+        rowsFetched.forEach((k, v) -> rows.put(k.getName(), v.sum()));
+
+        final long hits = addressCacheHits.sum();
+        final long misses = addressCacheMisses.sum();
+
+        final JSONObject countryJson = new JSONObject();
+        countries.forEach((k, v) -> countryJson.put(k.isEmpty() ? "none" : k, v.toJson(now)));
+
+        return new JSONObject()
+                .put("timestamp", now)
+                .put("elapsed_seconds", Math.round(elapsedSec))
+                .put("documents", new JSONObject()
+                        .put("queued", documentsQueued.sum())
+                        .put("per_second", Math.round(documentsQueued.sum() / elapsedSec)))
+                .put("queue_depth", queueDepth.getAsInt())
+                .put("rows", rows)
+                .put("address_cache", new JSONObject()
+                        .put("hits", hits)
+                        .put("misses", misses)
+                        .put("hit_rate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses)))
+                .put("assembly_latency_us", assemblyLatency.toJson())
+                .put("bulk", new JSONObject()
+                        .put("requests", bulkRequests.sum())
+                        .put("documents", bulkDocuments.sum())
+                        .put("rejected", bulkRejected.sum())
+                        .put("latency_ms", bulkLatency.toJson()))
+                .put("countries", countryJson);
+    }
+
+    private void writeProgressFile() {
+        try {
+            final Path tmpFile = progressFile.resolveSibling(progressFile.getFileName() + ".tmp");
+            Files.write(tmpFile, toJson().toString(2).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmpFile, progressFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot write import progress file {}", progressFile, e);
+        }
+    }
+
+    /**
+     * Progress of the import of a single country.
+     */
+    public static class CountryProgress {
+        private final long estimatedRows;
+        private final long startMillis = System.currentTimeMillis();
+        private final LongAdder rowsFetched = new LongAdder();
+        private volatile long endMillis = 0;
+
+        private CountryProgress(long estimatedRows) {
+            this.estimatedRows = estimatedRows;
+        }
+
+        public void finish() {
+            endMillis = System.currentTimeMillis();
+        }
+
+        private JSONObject toJson(long now) {
+            final long fetched = rowsFetched.sum();
+            final JSONObject out = new JSONObject()
+                    .put("state", endMillis > 0 ? "done" : "running")
+                    .put("rows_fetched", fetched)
+                    .put("elapsed_seconds", ((endMillis > 0 ? endMillis : now) - startMillis) / 1000);
+
+            if (estimatedRows >= 0) {
+                out.put("rows_estimated", estimatedRows);
+                if (endMillis == 0 && fetched > 0) {
+                    final double rowsPerMilli = (double) fetched / Math.max(1, now - startMillis);
+                    out.put("eta_seconds", Math.round(Math.max(0, estimatedRows - fetched) / rowsPerMilli / 1000));
+                }
+            }
+
+            return out;
+        }
+    }
+
+    /**
+     * Histogram with exponentially growing buckets (powers of two).
+     */
+    static class LatencyHistogram {
+        private static final int NUM_BUCKETS = 32;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        void add(long value) {
+            final int bucket = value <= 0 ? 0 : Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+            buckets.incrementAndGet(bucket);
+            count.increment();
+            sum.add(value);
+        }
+
+        /**
+         * Get the upper bound of the bucket in which the given percentile falls.
+         */
+        long percentile(double fraction) {
+            final long total = count.sum();
+            if (total == 0) {
+                return 0;
+            }
+
+            final long target = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < NUM_BUCKETS; ++i) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return 1L << i;
+                }
+            }
+
+            return 1L << (NUM_BUCKETS - 1);
+        }
+
+        JSONObject toJson() {
+            final long total = count.sum();
+            return new JSONObject()
+                    .put("count", total)
+                    .put("mean", total == 0 ? 0 : sum.sum() / total)
+                    .put("p50", percentile(0.5))
+                    .put("p90", percentile(0.9))
+                    .put("p99", percentile(0.99));
+        }
+    }
+}
@@ -13,4 +13,20 @@ public interface Importer {
      * Finish up the import.
      */
     public void finish();
+
+    /**
+     * Send all documents added so far to the database and wait until they
+     * have been acknowledged. Importers without a database may ignore it.
+     *
+     * @return True, if all documents added since the last flush were stored successfully.
+     */
+    default boolean flush() {
+        return true;
+    }
+
+    /**
+     * Set the collector for statistics about the bulk requests sent.
+     * Importers that do not talk to a database may ignore it.
+     */
+    default void setStatistics(ImportStatistics statistics) {}
 }
@@ -0,0 +1,44 @@
+package de.komoot.photon;
+
+import org.json.JSONObject;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.concurrent.Semaphore;
+
+import static spark.Spark.halt;
+
+/**
+ * Wraps a route so that only a limited number of requests are processed
+ * at the same time.
+ *
+ * All geocoding routes share the same limit. Requests beyond the limit are
+ * rejected right away with 503 instead of waiting for the database, so
+ * that a slow database cannot take up all webserver threads and other
+ * endpoints like /status keep responding.
+ */
+public class LimitedRoute implements Route {
+    private final Route route;
+    private final Semaphore permits;
+
+    LimitedRoute(Route route, Semaphore permits) {
+        this.route = route;
+        this.permits = permits;
+    }
+
+    @Override
+    public Object handle(Request request, Response response) throws Exception {
+        if (!permits.tryAcquire()) {
+            JSONObject json = new JSONObject();
+            json.put("message", "Too many requests in progress. Try again later.");
+            throw halt(503, json.toString());
+        }
+
+        try {
+            return route.handle(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
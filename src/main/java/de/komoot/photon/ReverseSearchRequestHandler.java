@@ -5,6 +5,7 @@ import de.komoot.photon.query.BadRequestException;
 import de.komoot.photon.query.ReverseRequest;
 import de.komoot.photon.query.ReverseRequestFactory;
 import de.komoot.photon.searcher.GeocodeJsonFormatter;
+import de.komoot.photon.searcher.GeocodeJsonWriter;
 import de.komoot.photon.searcher.PhotonResult;
 import de.komoot.photon.searcher.ReverseHandler;
 import org.json.JSONObject;
@@ -12,6 +13,7 @@ import spark.Request;
 import spark.Response;
 import spark.RouteImpl;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
@@ -32,7 +34,7 @@ public class ReverseSearchRequestHandler extends RouteImpl {
     }
 
     @Override
-    public String handle(Request request, Response response) {
+    public String handle(Request request, Response response) throws IOException {
         ReverseRequest photonRequest = null;
         try {
             photonRequest = reverseRequestFactory.create(request);
@@ -42,8 +44,21 @@ public class ReverseSearchRequestHandler extends RouteImpl {
             throw halt(e.getHttpStatus(), json.toString());
         }
 
-        List<PhotonResult> results = requestHandler.reverse(photonRequest);
+        List<PhotonResult> results = filterResults(photonRequest, requestHandler.reverse(photonRequest));
 
+        if (photonRequest.getDebug()) {
+            final String debugInfo = requestHandler.dumpQuery(photonRequest);
+            return new GeocodeJsonFormatter(false, photonRequest.getLanguage()).convert(results, debugInfo);
+        }
+
+        new GeocodeJsonWriter(photonRequest.getLanguage()).write(results, response.raw().getOutputStream());
+        return "";
+    }
+
+    /**
+     * Post-process the results from the database for the final response.
+     */
+    static List<PhotonResult> filterResults(ReverseRequest photonRequest, List<PhotonResult> results) {
         // Search in stops from gtfs file
         if (GtfsSearchStops.isAbleToSearch()) {
             results = GtfsSearchStops.searchByLatLon(results, photonRequest);
@@ -54,11 +69,6 @@ public class ReverseSearchRequestHandler extends RouteImpl {
             results = results.subList(0, photonRequest.getLimit());
         }
 
-        String debugInfo = null;
-        if (photonRequest.getDebug()) {
-            debugInfo = requestHandler.dumpQuery(photonRequest);
-        }
-
-        return new GeocodeJsonFormatter(false, photonRequest.getLanguage()).convert(results, debugInfo);
+        return results;
     }
 }
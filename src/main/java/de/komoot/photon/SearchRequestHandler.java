@@ -10,6 +10,7 @@ import spark.Request;
 import spark.Response;
 import spark.RouteImpl;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
@@ -30,7 +31,7 @@ public class SearchRequestHandler extends RouteImpl {
     }
 
     @Override
-    public String handle(Request request, Response response) {
+    public String handle(Request request, Response response) throws IOException {
         PhotonRequest photonRequest = null;
         try {
             photonRequest = photonRequestFactory.create(request);
@@ -40,8 +41,21 @@ public class SearchRequestHandler extends RouteImpl {
             throw halt(e.getHttpStatus(), json.toString());
         }
 
-        List<PhotonResult> results = requestHandler.search(photonRequest);
+        List<PhotonResult> results = filterResults(photonRequest, requestHandler.search(photonRequest));
 
+        if (photonRequest.getDebug()) {
+            final String debugInfo = requestHandler.dumpQuery(photonRequest);
+            return new GeocodeJsonFormatter(true, photonRequest.getLanguage()).convert(results, debugInfo);
+        }
+
+        new GeocodeJsonWriter(photonRequest.getLanguage()).write(results, response.raw().getOutputStream());
+        return "";
+    }
+
+    /**
+     * Post-process the results from the database for the final response.
+     */
+    static List<PhotonResult> filterResults(PhotonRequest photonRequest, List<PhotonResult> results) {
         // Further filtering
         results = new StreetDupesRemover(photonRequest.getLanguage()).execute(results);
 
@@ -58,11 +72,6 @@ public class SearchRequestHandler extends RouteImpl {
             }
         }
 
-        String debugInfo = null;
-        if (photonRequest.getDebug()) {
-            debugInfo = requestHandler.dumpQuery(photonRequest);
-        }
-
-        return new GeocodeJsonFormatter(photonRequest.getDebug(), photonRequest.getLanguage()).convert(results, debugInfo);
+        return results;
     }
 }
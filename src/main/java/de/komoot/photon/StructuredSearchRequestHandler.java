@@ -9,6 +9,7 @@ import spark.Request;
 import spark.Response;
 import spark.RouteImpl;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
@@ -26,7 +27,7 @@ public class StructuredSearchRequestHandler extends RouteImpl {
     }
 
     @Override
-    public String handle(Request request, Response response) {
+    public String handle(Request request, Response response) throws IOException {
         StructuredPhotonRequest photonRequest;
         try {
             photonRequest = photonRequestFactory.createStructured(request);
@@ -46,7 +47,11 @@ public class StructuredSearchRequestHandler extends RouteImpl {
             results = results.subList(0, photonRequest.getLimit());
         }
 
-        String debugInfo = null;
-        return new GeocodeJsonFormatter(photonRequest.getDebug(), photonRequest.getLanguage()).convert(results, debugInfo);
+        if (photonRequest.getDebug()) {
+            return new GeocodeJsonFormatter(true, photonRequest.getLanguage()).convert(results, null);
+        }
+
+        new GeocodeJsonWriter(photonRequest.getLanguage()).write(results, response.raw().getOutputStream());
+        return "";
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package de.komoot.photon;
 
+import java.util.Map;
+
 /**
  * Interface for classes accepting database updates.
  */
@@ -10,5 +12,42 @@ public interface Updater {
 
     boolean exists(long docId, int objectId);
 
+    /**
+     * Delete left-over documents of places which now have fewer documents.
+     *
+     * For each place, the documents starting with the given object id are
+     * deleted until the first object id that does not exist.
+     *
+     * @param firstObjectIds Maps place IDs to the first object ID to delete.
+     */
+    default void deleteSubsequent(Map<Long, Integer> firstObjectIds) {
+        for (var entry : firstObjectIds.entrySet()) {
+            int objectId = entry.getValue();
+            while (exists(entry.getKey(), objectId)) {
+                delete(entry.getKey(), objectId++);
+            }
+        }
+    }
+
     void finish();
+
+    /**
+     * Send all pending changes to the database and wait until they
+     * have been acknowledged.
+     *
+     * @return True, if all changes since the last flush were applied successfully.
+     */
+    default boolean flush() {
+        return true;
+    }
+
+    /**
+     * Like {@link #flush()} but for the last changes of an update run.
+     *
+     * Updaters may use this to wait until all changes of the run have
+     * become visible.
+     */
+    default boolean flushFinal() {
+        return flush();
+    }
 }
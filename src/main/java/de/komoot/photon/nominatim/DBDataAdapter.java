@@ -16,6 +16,18 @@ public interface DBDataAdapter {
      */
     Map<String, String> getMap(ResultSet rs, String columnName) throws SQLException;
 
+    /**
+     * Read the data of a map column without parsing it.
+     */
+    default String getRawMap(ResultSet rs, String columnName) throws SQLException {
+        return rs.getString(columnName);
+    }
+
+    /**
+     * Create a hash map from column data read with {@link #getRawMap}.
+     */
+    Map<String, String> parseMap(String rawMap);
+
     /**
      * Create a JTS geometry from the given column data.
      */
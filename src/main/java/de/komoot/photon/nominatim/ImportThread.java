@@ -1,9 +1,12 @@
 package de.komoot.photon.nominatim;
 
+import de.komoot.photon.ImportStatistics;
 import de.komoot.photon.Importer;
 import de.komoot.photon.PhotonDoc;
 import org.slf4j.Logger;
 
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.atomic.AtomicLong;
@@ -16,14 +19,23 @@ public class ImportThread {
 
     private static final int PROGRESS_INTERVAL = 50000;
     private static final NominatimResult FINAL_DOCUMENT = NominatimResult.fromAddress(new PhotonDoc(0, null, 0, null, null), null);
-    private final BlockingQueue<NominatimResult> documents = new LinkedBlockingDeque<>(100);
+    // Contains NominatimResults and CountryMarkers for country starts and checkpoints.
+    private final BlockingQueue<Object> documents = new LinkedBlockingDeque<>(100);
     private final AtomicLong counter = new AtomicLong();
     private final Importer importer;
+    private final ImportStatistics statistics;
     private final Thread thread;
     private final long startMillis;
 
     public ImportThread(Importer importer) {
+        this(importer, new ImportStatistics());
+    }
+
+    public ImportThread(Importer importer, ImportStatistics statistics) {
         this.importer = importer;
+        this.statistics = statistics;
+        statistics.setQueueDepthSupplier(documents::size);
+        importer.setStatistics(statistics);
         this.thread = new Thread(new ImportRunnable());
         this.thread.start();
         this.startMillis = System.currentTimeMillis();
@@ -47,12 +59,56 @@ public class ImportThread {
             }
         }
 
+        statistics.countQueuedDocument();
         if (counter.incrementAndGet() % PROGRESS_INTERVAL == 0) {
             final double documentsPerSecond = 1000d * counter.longValue() / (System.currentTimeMillis() - startMillis);
             LOGGER.info("Imported {} documents [{}/second]", counter.longValue(), documentsPerSecond);
         }
     }
 
+    /**
+     * Mark the start of the documents for the given country.
+     *
+     * Documents of different countries may get mixed in the import queue,
+     * when countries are read in parallel. The import thread uses the marker
+     * to find out which countries may have lost documents, when a bulk
+     * request fails.
+     *
+     * @param countryCode Country whose documents are added from now on.
+     */
+    public void startCountry(String countryCode) {
+        enqueue(new CountryMarker(countryCode, null));
+    }
+
+    /**
+     * Add a checkpoint for the end of the documents of the given country.
+     *
+     * Once all documents added before the checkpoint have been acknowledged
+     * by the database, the given action is run in the import thread.
+     * The action is only run, when no document of the country has been
+     * lost. That is the case when no bulk request has failed while
+     * documents of the country were waiting to be saved.
+     *
+     * @param countryCode Country previously started with {@link #startCountry}.
+     * @param action Action to execute when the checkpoint is reached.
+     */
+    public void addCheckpoint(String countryCode, Runnable action) {
+        enqueue(new CountryMarker(countryCode, action));
+    }
+
+    private void enqueue(Object item) {
+        while (true) {
+            try {
+                documents.put(item);
+                break;
+            } catch (InterruptedException e) {
+                LOGGER.warn("Thread interrupted while placing checkpoint in queue.");
+                // Restore interrupted state.
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     /**
      * Finalize the import.
      *
@@ -74,18 +130,36 @@ public class ImportThread {
                     counter.longValue(), (System.currentTimeMillis() - startMillis)/1000);
     }
 
+    private static class CountryMarker {
+        private final String countryCode;
+        private final Runnable action;
+
+        CountryMarker(String countryCode, Runnable action) {
+            this.countryCode = countryCode;
+            this.action = action;
+        }
+    }
+
     private class ImportRunnable implements Runnable {
+        // Countries that have been started but whose checkpoint has not been reached yet.
+        private final Set<String> activeCountries = new HashSet<>();
+        // Countries that had documents waiting while a bulk request failed.
+        private final Set<String> failedCountries = new HashSet<>();
 
         @Override
         public void run() {
             while (true) {
                 try {
-                    NominatimResult docs = documents.take();
-                    if (docs == FINAL_DOCUMENT) {
+                    Object item = documents.take();
+                    if (item == FINAL_DOCUMENT) {
                         break;
                     }
+                    if (item instanceof CountryMarker) {
+                        processCountryMarker((CountryMarker) item);
+                        continue;
+                    }
                     int objectId = 0;
-                    for (PhotonDoc doc : docs.getDocsWithHousenumber()) {
+                    for (PhotonDoc doc : ((NominatimResult) item).getDocsWithHousenumber()) {
                         importer.add(doc, objectId++);
                     }
                 } catch (InterruptedException e) {
@@ -96,6 +170,34 @@ public class ImportThread {
             }
             importer.finish();
         }
+
+        private void processCountryMarker(CountryMarker marker) {
+            if (marker.action == null) {
+                activeCountries.add(marker.countryCode);
+                return;
+            }
+
+            flush();
+            activeCountries.remove(marker.countryCode);
+            if (failedCountries.remove(marker.countryCode)) {
+                LOGGER.warn("Documents of country '{}' were lost during import. Checkpoint not recorded.",
+                            marker.countryCode);
+            } else {
+                marker.action.run();
+            }
+        }
+
+        /**
+         * Send all outstanding documents to the database.
+         *
+         * A failed bulk request may have contained documents of any of the
+         * countries currently in progress, so all of them are marked as failed.
+         */
+        private void flush() {
+            if (!importer.flush()) {
+                failedCountries.addAll(activeCountries);
+            }
+        }
     }
 
 }
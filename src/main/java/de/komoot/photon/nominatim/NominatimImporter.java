@@ -1,5 +1,6 @@
 package de.komoot.photon.nominatim;
 
+import de.komoot.photon.ImportStatistics;
 import de.komoot.photon.PhotonDoc;
 import de.komoot.photon.nominatim.model.AddressRow;
 import de.komoot.photon.nominatim.model.NominatimAddressCache;
@@ -8,8 +9,16 @@ import de.komoot.photon.nominatim.model.PlaceRowMapper;
 import org.locationtech.jts.geom.Geometry;
 import org.slf4j.Logger;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Importer for data from a Nominatim database.
@@ -17,6 +26,15 @@ import java.util.Map;
 public class NominatimImporter extends NominatimConnector {
     private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(NominatimImporter.class);
 
+    private static final int MAX_PENDING_ROWS_PER_THREAD = 1000;
+
+    private ImportStatistics statistics = new ImportStatistics();
+    private boolean estimateRows = false;
+    private int assemblyThreads = 0;
+    private ExecutorService assemblyPool = null;
+    private Semaphore assemblySlots = null;
+    private final AtomicReference<RuntimeException> assemblyFailure = new AtomicReference<>();
+
     public NominatimImporter(String host, int port, String database, String username, String password) {
         this(host, port, database, username, password, new PostgisDataAdapter());
     }
@@ -25,6 +43,57 @@ public class NominatimImporter extends NominatimConnector {
         super(host, port, database, username, password, dataAdapter);
     }
 
+    /**
+     * Set the collector for import statistics.
+     *
+     * @param statistics Statistics collector, may be shared between importers.
+     * @param estimateRows When set, count the rows of each country before reading
+     *                     it in order to be able to estimate the remaining time.
+     */
+    public void setStatistics(ImportStatistics statistics, boolean estimateRows) {
+        this.statistics = statistics;
+        this.estimateRows = estimateRows;
+    }
+
+
+    /**
+     * Set the number of threads used to assemble documents.
+     *
+     * When set to 0, documents are assembled directly in the thread reading
+     * from the database. Otherwise the reading thread only extracts the raw
+     * row data and hands it to a pool of threads which resolve the addresses
+     * and compute the final documents.
+     */
+    public void setAssemblyThreads(int numThreads) {
+        if (assemblyPool != null) {
+            assemblyPool.shutdown();
+            assemblyPool = null;
+        }
+
+        assemblyThreads = numThreads;
+        if (numThreads > 0) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            assemblyPool = Executors.newFixedThreadPool(numThreads, r -> {
+                Thread thread = new Thread(r, "assembly-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            assemblySlots = new Semaphore(numThreads * MAX_PENDING_ROWS_PER_THREAD);
+        }
+    }
+
+    /**
+     * Stop the assembly threads.
+     *
+     * Must be called when all countries have been read. Countries read
+     * afterwards are assembled in the reading thread.
+     */
+    public void close() {
+        if (assemblyPool != null) {
+            assemblyPool.shutdown();
+            assemblyPool = null;
+        }
+    }
 
     /**
      * Parse every relevant row in placex and location_osmline
@@ -52,7 +121,10 @@ public class NominatimImporter extends NominatimConnector {
             sqlArgTypes = new int[]{Types.VARCHAR};
         }
 
-        NominatimAddressCache addressCache = new NominatimAddressCache();
+        final var progress = statistics.startCountry(countryCode,
+                estimateRows ? countRows(countrySQL, sqlArgs, sqlArgTypes) : -1);
+
+        NominatimAddressCache addressCache = new NominatimAddressCache(statistics);
         addressCache.loadCountryAddresses(template, dbutils, countryCode);
 
         final PlaceRowMapper placeRowMapper = new PlaceRowMapper(dbutils);
@@ -71,20 +143,28 @@ public class NominatimImporter extends NominatimConnector {
                         " AND rank_search < 30" +
                         " ORDER BY geometry_sector, parent_place_id",
                 sqlArgs, sqlArgTypes, rs -> {
+                    statistics.countRow(ImportStatistics.RowType.PLACE, progress);
+
                     final PhotonDoc doc = placeRowMapper.mapRow(rs, 0);
-                    final Map<String, String> address = dbutils.getMap(rs, "address");
+                    final String rawAddress = dbutils.getRawMap(rs, "address");
+                    final String addresslines = rs.getString("addresslines");
 
                     assert (doc != null);
 
-                    doc.completePlace(addressCache.getAddressList(rs.getString("addresslines")));
-                    doc.address(address); // take precedence over computed address
-                    doc.setCountry(cnames);
+                    assemble(() -> {
+                        final long startNanos = System.nanoTime();
+                        final Map<String, String> address = dbutils.parseMap(rawAddress);
+                        doc.completePlace(addressCache.getAddressList(addresslines));
+                        doc.address(address); // take precedence over computed address
+                        doc.setCountry(cnames);
 
-                    var result = NominatimResult.fromAddress(doc, address);
+                        var result = NominatimResult.fromAddress(doc, address);
+                        statistics.addAssemblyTime(System.nanoTime() - startNanos);
 
-                    if (result.isUsefulForIndex()) {
-                        importThread.addDocument(result);
-                    }
+                        if (result.isUsefulForIndex()) {
+                            importThread.addDocument(result);
+                        }
+                    });
                 });
 
         // Next get all POIs/housenumbers.
@@ -104,28 +184,34 @@ public class NominatimImporter extends NominatimConnector {
                         " AND p.rank_search = 30 " +
                         " ORDER BY p.geometry_sector",
                 sqlArgs, sqlArgTypes, rs -> {
+                    statistics.countRow(ImportStatistics.RowType.POI, progress);
+
                     final PhotonDoc doc = placeRowMapper.mapRow(rs, 0);
-                    final Map<String, String> address = dbutils.getMap(rs, "address");
+                    final String rawAddress = dbutils.getRawMap(rs, "address");
+                    final String addresslines = rs.getString("addresslines");
+                    final Supplier<AddressRow> parentReader = readParentAddress(rs);
 
                     assert (doc != null);
 
-                    final var addressPlaces = addressCache.getAddressList(rs.getString("addresslines"));
-                    if (rs.getString("parent_class") != null) {
-                        addressPlaces.add(0, new AddressRow(
-                                dbutils.getMap(rs, "parent_name"),
-                                rs.getString("parent_class"),
-                                rs.getString("parent_type"),
-                                rs.getInt("parent_rank_address")));
-                    }
-                    doc.completePlace(addressPlaces);
-                    doc.address(address); // take precedence over computed address
-                    doc.setCountry(cnames);
-
-                    var result = NominatimResult.fromAddress(doc, address);
-
-                    if (result.isUsefulForIndex()) {
-                        importThread.addDocument(result);
-                    }
+                    assemble(() -> {
+                        final long startNanos = System.nanoTime();
+                        final Map<String, String> address = dbutils.parseMap(rawAddress);
+                        final AddressRow parent = parentReader.get();
+                        final var addressPlaces = addressCache.getAddressList(addresslines);
+                        if (parent != null) {
+                            addressPlaces.add(0, parent);
+                        }
+                        doc.completePlace(addressPlaces);
+                        doc.address(address); // take precedence over computed address
+                        doc.setCountry(cnames);
+
+                        var result = NominatimResult.fromAddress(doc, address);
+                        statistics.addAssemblyTime(System.nanoTime() - startNanos);
+
+                        if (result.isUsefulForIndex()) {
+                            importThread.addDocument(result);
+                        }
+                    });
                 });
 
         final OsmlineRowMapper osmlineRowMapper = new OsmlineRowMapper();
@@ -143,37 +229,127 @@ public class NominatimImporter extends NominatimConnector {
                         " WHERE startnumber is not null AND p." + countrySQL +
                         " ORDER BY p.geometry_sector, p.parent_place_id",
                 sqlArgs, sqlArgTypes, rs -> {
+                    statistics.countRow(ImportStatistics.RowType.INTERPOLATION, progress);
+
                     final PhotonDoc doc = osmlineRowMapper.mapRow(rs, 0);
+                    final String addresslines = rs.getString("addresslines");
+                    final Supplier<AddressRow> parentReader = readParentAddress(rs);
+                    final Geometry geometry = dbutils.extractGeometry(rs, "linegeo");
+                    final long startnumber = rs.getLong("startnumber");
+                    final long endnumber = rs.getLong("endnumber");
+                    final long step = hasNewStyleInterpolation ? rs.getLong("step") : 0;
+                    final String interpolationtype = hasNewStyleInterpolation ? null : rs.getString("interpolationtype");
 
-                    final var addressPlaces = addressCache.getAddressList(rs.getString("addresslines"));
-                    if (rs.getString("parent_class") != null) {
-                        addressPlaces.add(0, new AddressRow(
-                                dbutils.getMap(rs, "parent_name"),
-                                rs.getString("parent_class"),
-                                rs.getString("parent_type"),
-                                rs.getInt("parent_rank_address")));
-                    }
-                    doc.completePlace(addressPlaces);
+                    assemble(() -> {
+                        final long startNanos = System.nanoTime();
+                        final AddressRow parent = parentReader.get();
+                        final var addressPlaces = addressCache.getAddressList(addresslines);
+                        if (parent != null) {
+                            addressPlaces.add(0, parent);
+                        }
+                        doc.completePlace(addressPlaces);
 
-                    doc.setCountry(cnames);
+                        doc.setCountry(cnames);
 
-                    final Geometry geometry = dbutils.extractGeometry(rs, "linegeo");
-                    final NominatimResult docs;
-                    if (hasNewStyleInterpolation) {
-                        docs = NominatimResult.fromInterpolation(
-                                doc, rs.getLong("startnumber"), rs.getLong("endnumber"),
-                                rs.getLong("step"), geometry);
-                    } else {
-                        docs = NominatimResult.fromInterpolation(
-                                doc, rs.getLong("startnumber"), rs.getLong("endnumber"),
-                                rs.getString("interpolationtype"), geometry);
-                    }
-
-                    if (docs.isUsefulForIndex()) {
-                        importThread.addDocument(docs);
-                    }
+                        final NominatimResult docs;
+                        if (hasNewStyleInterpolation) {
+                            docs = NominatimResult.fromInterpolation(doc, startnumber, endnumber, step, geometry);
+                        } else {
+                            docs = NominatimResult.fromInterpolation(doc, startnumber, endnumber, interpolationtype, geometry);
+                        }
+
+                        statistics.addAssemblyTime(System.nanoTime() - startNanos);
+
+                        if (docs.isUsefulForIndex()) {
+                            importThread.addDocument(docs);
+                        }
+                    });
                 });
 
+        waitForAssembly();
+        progress.finish();
+    }
+
+    /**
+     * Read the raw data of the parent address from the row.
+     *
+     * The names are only parsed when the returned supplier is called,
+     * so that this can happen in the assembly threads.
+     */
+    private Supplier<AddressRow> readParentAddress(ResultSet rs) throws SQLException {
+        final String parentClass = rs.getString("parent_class");
+        if (parentClass == null) {
+            return () -> null;
+        }
+
+        final String rawName = dbutils.getRawMap(rs, "parent_name");
+        final String parentType = rs.getString("parent_type");
+        final int parentRank = rs.getInt("parent_rank_address");
+
+        return () -> new AddressRow(dbutils.parseMap(rawName), parentClass, parentType, parentRank);
+    }
+
+    /**
+     * Run the assembly of a document from the row data, either directly
+     * or in the assembly thread pool.
+     *
+     * When the pool is in use, this blocks while too many rows are waiting
+     * for assembly.
+     */
+    private void assemble(Runnable task) {
+        if (assemblyPool == null) {
+            task.run();
+            return;
+        }
+
+        assemblySlots.acquireUninterruptibly();
+        try {
+            assemblyPool.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error while assembling document", e);
+                    assemblyFailure.compareAndSet(null, e);
+                } finally {
+                    assemblySlots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            assemblySlots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait until all rows handed to the assembly threads have been processed.
+     */
+    private void waitForAssembly() {
+        if (assemblyPool == null) {
+            return;
+        }
+
+        final int numSlots = assemblyThreads * MAX_PENDING_ROWS_PER_THREAD;
+        assemblySlots.acquireUninterruptibly(numSlots);
+        assemblySlots.release(numSlots);
+
+        final RuntimeException failure = assemblyFailure.getAndSet(null);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Count the rows that will be read for a country.
+     */
+    private long countRows(String countrySQL, Object[] sqlArgs, int[] sqlArgTypes) {
+        final Long places = template.queryForObject(
+                "SELECT count(*) FROM placex WHERE linked_place_id IS NULL AND centroid IS NOT NULL AND " + countrySQL,
+                sqlArgs, sqlArgTypes, Long.class);
+        final Long interpolations = template.queryForObject(
+                "SELECT count(*) FROM location_property_osmline WHERE startnumber is not null AND " + countrySQL,
+                sqlArgs, sqlArgTypes, Long.class);
+
+        return (places == null ? 0 : places) + (interpolations == null ? 0 : interpolations);
     }
 
 
@@ -11,11 +11,14 @@ import java.util.regex.Pattern;
 
 /**
  * A Nominatim result consisting of the basic PhotonDoc for the object
- * and a map of attached house numbers together with their respective positions.
+ * and a list of attached house numbers together with their respective positions.
+ *
+ * Positions of interpolated house numbers are only computed when the
+ * document for the house number is requested.
  */
 class NominatimResult {
     private PhotonDoc doc;
-    private Map<String, Point> housenumbers;
+    private Housenumbers housenumbers;
 
     private static final Pattern HOUSENUMBER_CHECK = Pattern.compile("(\\A|.*,)[^\\d,]{3,}(,.*|\\Z)");
     private static final Pattern HOUSENUMBER_SPLIT = Pattern.compile("\\s*[;,]\\s*");
@@ -30,35 +33,47 @@ class NominatimResult {
     }
 
     boolean isUsefulForIndex() {
-        return (housenumbers != null && !housenumbers.isEmpty()) || doc.isUsefulForIndex();
+        return (housenumbers != null && housenumbers.size() > 0) || doc.isUsefulForIndex();
     }
 
+    /**
+     * Get the documents to index for this result.
+     *
+     * When the result has house numbers attached, then the returned list
+     * contains one document per house number. The documents are created
+     * on access, so the list should be iterated only once.
+     */
     List<PhotonDoc> getDocsWithHousenumber() {
-        if (housenumbers == null || housenumbers.isEmpty()) {
+        if (housenumbers == null || housenumbers.size() == 0) {
             return Collections.singletonList(doc);
         }
 
-        List<PhotonDoc> results = new ArrayList<>(housenumbers.size());
-        for (Map.Entry<String, Point> e : housenumbers.entrySet()) {
-            PhotonDoc copy = new PhotonDoc(doc);
-            copy.houseNumber(e.getKey());
-            copy.centroid(e.getValue());
-            results.add(copy);
-        }
+        final Housenumbers numbers = housenumbers;
+        return new AbstractList<>() {
+            @Override
+            public PhotonDoc get(int index) {
+                return new PhotonDoc(doc)
+                        .houseNumber(numbers.getHousenumber(index))
+                        .centroid(numbers.getPoint(index));
+            }
 
-        return results;
+            @Override
+            public int size() {
+                return numbers.size();
+            }
+        };
     }
 
     /**
      * Adds house numbers from a house number string.
      * <p>
      * This may either be a single house number or multiple
-     * house numbers delimited by a semicolon. All locations
-     * will be set to the centroid of the doc geometry.
+     * house numbers delimited by a semicolon.
      *
      * @param str House number string. May be null, in which case nothing is added.
+     * @param numbers Set to add the house numbers to.
      */
-    private void addHousenumbersFromString(String str) {
+    private static void addHousenumbersFromString(String str, Set<String> numbers) {
         if (str == null || str.isEmpty())
             return;
 
@@ -72,7 +87,7 @@ class NominatimResult {
         for (String part : parts) {
             String h = part.trim();
             if (h.length() <= 20 && !h.isEmpty())
-                housenumbers.put(h, doc.getCentroid());
+                numbers.add(h);
         }
     }
 
@@ -80,10 +95,12 @@ class NominatimResult {
         NominatimResult result = new NominatimResult(doc);
 
         if (address != null) {
-            result.housenumbers = new HashMap<>();
-            result.addHousenumbersFromString(address.get("housenumber"));
-            result.addHousenumbersFromString(address.get("streetnumber"));
-            result.addHousenumbersFromString(address.get("conscriptionnumber"));
+            // All locations are set to the centroid of the doc geometry.
+            Set<String> numbers = new LinkedHashSet<>();
+            addHousenumbersFromString(address.get("housenumber"), numbers);
+            addHousenumbersFromString(address.get("streetnumber"), numbers);
+            addHousenumbersFromString(address.get("conscriptionnumber"), numbers);
+            result.housenumbers = new ListedHousenumbers(new ArrayList<>(numbers), doc.getCentroid());
         }
 
         return result;
@@ -104,13 +121,6 @@ class NominatimResult {
     public static NominatimResult fromInterpolation(PhotonDoc doc, long first, long last, String interpoltype, Geometry geom) {
         NominatimResult result = new NominatimResult(doc);
         if (last > first && (last - first) < 1000) {
-            result.housenumbers = new HashMap<>();
-
-            LengthIndexedLine line = new LengthIndexedLine(geom);
-            double si = line.getStartIndex();
-            double ei = line.getEndIndex();
-            double lstep = (ei - si) / (last - first);
-
             // leave out first and last, they have a distinct OSM node that is already indexed
             long step = 2;
             long num = 1;
@@ -124,10 +134,8 @@ class NominatimResult {
                 step = 1;
             }
 
-            GeometryFactory fac = geom.getFactory();
-            for (; first + num < last; num += step) {
-                result.housenumbers.put(String.valueOf(num + first), fac.createPoint(line.extractPoint(si + lstep * num)));
-            }
+            final int count = num < last - first ? (int) ((last - first - num - 1) / step + 1) : 0;
+            result.housenumbers = new InterpolatedHousenumbers(first, last, num, step, count, geom);
         }
 
         return result;
@@ -147,24 +155,93 @@ class NominatimResult {
     public static NominatimResult fromInterpolation(PhotonDoc doc, long first, long last, long step, Geometry geom) {
         NominatimResult result = new NominatimResult(doc);
         if (last >= first && (last - first) < 1000) {
-            result.housenumbers = new HashMap<>();
-
             if (last == first) {
-                result.housenumbers.put(String.valueOf(first), geom.getCentroid());
+                result.housenumbers = new ListedHousenumbers(List.of(String.valueOf(first)), geom.getCentroid());
             } else {
-                LengthIndexedLine line = new LengthIndexedLine(geom);
-                double si = line.getStartIndex();
-                double ei = line.getEndIndex();
-                double lstep = (ei - si) / (last - first);
-
-                GeometryFactory fac = geom.getFactory();
-                for (long num = 0; first + num <= last; num += step) {
-                    result.housenumbers.put(String.valueOf(num + first), fac.createPoint(line.extractPoint(si + lstep * num)));
-                }
+                step = Math.max(1, step);
+                result.housenumbers = new InterpolatedHousenumbers(
+                        first, last, 0, step, (int) ((last - first) / step + 1), geom);
             }
-
         }
 
         return result;
     }
+
+    private interface Housenumbers {
+        int size();
+
+        String getHousenumber(int index);
+
+        Point getPoint(int index);
+    }
+
+    /**
+     * House numbers which all share the same position.
+     */
+    private static class ListedHousenumbers implements Housenumbers {
+        private final List<String> numbers;
+        private final Point point;
+
+        ListedHousenumbers(List<String> numbers, Point point) {
+            this.numbers = numbers;
+            this.point = point;
+        }
+
+        @Override
+        public int size() {
+            return numbers.size();
+        }
+
+        @Override
+        public String getHousenumber(int index) {
+            return numbers.get(index);
+        }
+
+        @Override
+        public Point getPoint(int index) {
+            return point;
+        }
+    }
+
+    /**
+     * House numbers placed at regular intervals along an interpolation line.
+     *
+     * The i-th house number is 'first + offset + i * step'.
+     */
+    private static class InterpolatedHousenumbers implements Housenumbers {
+        private final long first;
+        private final long offset;
+        private final long step;
+        private final int count;
+        private final LengthIndexedLine line;
+        private final GeometryFactory factory;
+        private final double startIndex;
+        private final double lengthStep;
+
+        InterpolatedHousenumbers(long first, long last, long offset, long step, int count, Geometry geom) {
+            this.first = first;
+            this.offset = offset;
+            this.step = step;
+            this.count = count;
+            this.line = new LengthIndexedLine(geom);
+            this.factory = geom.getFactory();
+            this.startIndex = line.getStartIndex();
+            this.lengthStep = (line.getEndIndex() - startIndex) / (last - first);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public String getHousenumber(int index) {
+            return String.valueOf(first + offset + index * step);
+        }
+
+        @Override
+        public Point getPoint(int index) {
+            return factory.createPoint(line.extractPoint(startIndex + lengthStep * (offset + index * step)));
+        }
+    }
 }
@@ -0,0 +1,160 @@
+package de.komoot.photon.nominatim;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs updates from a Nominatim database in the background.
+ *
+ * Updates are run one after the other on a single thread. Requests for an
+ * update that come in while an update is already waiting are merged with
+ * the waiting one.
+ *
+ * When started, the scheduler listens for the notifications the update
+ * trigger sends whenever a place has changed and runs an update shortly
+ * afterwards. If the database cannot send notifications, it falls back
+ * to checking the update log in regular intervals.
+ */
+public class NominatimUpdateScheduler {
+    private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(NominatimUpdateScheduler.class);
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 1000;
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 15000;
+
+    private final NominatimUpdater nominatimUpdater;
+    private final Runnable updateTask;
+    private final long debounceMillis;
+    private final long pollIntervalMillis;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean updatePending = new AtomicBoolean(false);
+    private Thread listenerThread = null;
+
+    public NominatimUpdateScheduler(NominatimUpdater nominatimUpdater, Runnable updateTask) {
+        this(nominatimUpdater, updateTask, DEFAULT_DEBOUNCE_MILLIS, DEFAULT_POLL_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param nominatimUpdater Updater for the database to watch for changes.
+     * @param updateTask Function that runs a complete update.
+     * @param debounceMillis Time to wait after a change notification before starting
+     *                       the update, so that bursts of changes are applied together.
+     * @param pollIntervalMillis Interval in which the update log is checked
+     *                           when no notifications are received.
+     */
+    public NominatimUpdateScheduler(NominatimUpdater nominatimUpdater, Runnable updateTask,
+                                    long debounceMillis, long pollIntervalMillis) {
+        this.nominatimUpdater = nominatimUpdater;
+        this.updateTask = updateTask;
+        this.debounceMillis = debounceMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "nominatim-update");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start watching the Nominatim database for changes.
+     */
+    public synchronized void start() {
+        if (listenerThread == null) {
+            listenerThread = new Thread(this::watchForChanges, "nominatim-update-listener");
+            listenerThread.setDaemon(true);
+            listenerThread.start();
+        }
+    }
+
+    public synchronized void stop() {
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            listenerThread = null;
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Request an update to run as soon as possible.
+     */
+    public void requestUpdate() {
+        scheduleUpdate(0);
+    }
+
+    /**
+     * Check if an update is waiting to be run.
+     */
+    public boolean isUpdatePending() {
+        return updatePending.get();
+    }
+
+    private void scheduleUpdate(long delayMillis) {
+        if (updatePending.compareAndSet(false, true)) {
+            executor.schedule(() -> {
+                // Changes coming in from now on need another update.
+                updatePending.set(false);
+                try {
+                    updateTask.run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error during update", e);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void watchForChanges() {
+        boolean warned = false;
+        while (!Thread.currentThread().isInterrupted()) {
+            try (Connection conn = nominatimUpdater.listenForUpdates()) {
+                LOGGER.info("Listening for update notifications from the Nominatim database.");
+                warned = false;
+                // Catch up with changes from before we were listening.
+                checkForUpdates();
+                receiveNotifications(conn.unwrap(PGConnection.class));
+            } catch (SQLException e) {
+                if (!warned) {
+                    LOGGER.warn("Cannot receive update notifications ({}). Checking for updates every {}s instead.",
+                            e.getMessage(), pollIntervalMillis / 1000);
+                    warned = true;
+                }
+            }
+
+            try {
+                Thread.sleep(pollIntervalMillis);
+                checkForUpdates();
+            } catch (InterruptedException e) {
+                // Restore interrupted state.
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void receiveNotifications(PGConnection conn) throws SQLException {
+        while (!Thread.currentThread().isInterrupted()) {
+            final PGNotification[] notifications = conn.getNotifications((int) pollIntervalMillis);
+            if (notifications != null && notifications.length > 0) {
+                scheduleUpdate(debounceMillis);
+            } else {
+                // Notifications may get lost, when the update log was modified otherwise.
+                checkForUpdates();
+            }
+        }
+    }
+
+    private void checkForUpdates() {
+        try {
+            if (nominatimUpdater.hasPendingUpdates()) {
+                scheduleUpdate(debounceMillis);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cannot check for pending updates: {}", e.getMessage());
+        }
+    }
+}
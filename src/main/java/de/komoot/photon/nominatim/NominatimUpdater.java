@@ -4,12 +4,25 @@ import de.komoot.photon.PhotonDoc;
 import de.komoot.photon.Updater;
 import de.komoot.photon.nominatim.model.*;
 import org.locationtech.jts.geom.Geometry;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Importer for updates from a Nominatim database.
@@ -19,19 +32,38 @@ public class NominatimUpdater extends NominatimConnector {
 
     private static final String SELECT_COLS_PLACEX = "SELECT place_id, osm_type, osm_id, class, type, name, postcode, address, extratags, ST_Envelope(geometry) AS bbox, parent_place_id, linked_place_id, rank_address, rank_search, importance, country_code, centroid";
     private static final String SELECT_COLS_ADDRESS = "SELECT p.name, p.class, p.type, p.rank_address";
+    private static final String SELECT_ADDRESS_LINES = SELECT_COLS_ADDRESS + ", pa.place_id AS address_for"
+            + " FROM placex p, place_addressline pa"
+            + " WHERE p.place_id = pa.address_place_id and pa.place_id = ANY(?)"
+            + " and pa.cached_rank_address > 4 and pa.address_place_id != pa.place_id and pa.isaddress"
+            + " ORDER BY pa.place_id, rank_address desc, fromarea desc, distance asc, rank_search desc";
     private static final String SELECT_OSMLINE_OLD_STYLE = "SELECT place_id, osm_id, parent_place_id, startnumber, endnumber, interpolationtype, postcode, country_code, linegeo";
     private static final String SELECT_OSMLINE_NEW_STYLE = "SELECT place_id, osm_id, parent_place_id, startnumber, endnumber, step, postcode, country_code, linegeo";
 
+    /**
+     * Channel on which the update trigger notifies about changes.
+     */
+    public static final String UPDATE_CHANNEL = "photon_updates";
+
+    /**
+     * Index for reading the update log in chunks. Older versions of the
+     * tracking tables were created without it.
+     */
+    private static final String UPDATE_LOG_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS photon_updates_rel_place_id_idx ON photon_updates (rel, place_id)";
+
     private static final String TRIGGER_SQL =
             "DROP TABLE IF EXISTS photon_updates;"
             + "CREATE TABLE photon_updates (rel TEXT, place_id BIGINT,"
             + "                             operation TEXT,"
             + "                             indexed_date TIMESTAMP WITH TIME ZONE);"
+            + UPDATE_LOG_INDEX_SQL + ";"
             + "CREATE OR REPLACE FUNCTION photon_update_func()\n"
             + " RETURNS TRIGGER AS $$\n"
             + "BEGIN\n"
             + "  INSERT INTO photon_updates("
             + "     VALUES (TG_TABLE_NAME, OLD.place_id, TG_OP, statement_timestamp()));"
+            + "  PERFORM pg_notify('" + UPDATE_CHANNEL + "', TG_TABLE_NAME);"
             + "  RETURN NEW;"
             + "END; $$ LANGUAGE plpgsql;"
             + "CREATE OR REPLACE TRIGGER photon_trigger_update_placex"
@@ -49,21 +81,38 @@ public class NominatimUpdater extends NominatimConnector {
             + "   AFTER DELETE ON location_property_osmline FOR EACH ROW"
             + "   EXECUTE FUNCTION photon_update_func()";
 
-    private Updater updater;
+    /**
+     * Maximum number of entries from the update log that are processed at once.
+     */
+    private static final int PLACE_BATCH_SIZE = 1000;
+
+    /**
+     * Maximum number of parent places for which the address terms are kept in memory.
+     */
+    private static final int PARENT_CACHE_SIZE = 10000;
+
+    private List<Updater> updaters = List.of();
+
+    /**
+     * Threads applying the updates, when more than one updater is in use.
+     */
+    private ExecutorService updatePool = null;
+
+    private final ParentAddressCache parentCache = new ParentAddressCache(PARENT_CACHE_SIZE);
 
     /**
      * Map a row from location_property_osmline (address interpolation lines) to a photon doc.
      * This may be old-style interpolation (using interpolationtype) or
      * new-style interpolation (using step).
      */
-    private final RowMapper<NominatimResult> osmlineToNominatimResult;
+    private final RowMapper<PendingResult> osmlineToNominatimResult;
 
 
     /**
      * Maps a placex row in nominatim to a photon doc.
      * Some attributes are still missing and can be derived by connected address items.
      */
-    private final RowMapper<NominatimResult> placeToNominatimResult;
+    private final RowMapper<PendingResult> placeToNominatimResult;
 
 
     /**
@@ -72,11 +121,6 @@ public class NominatimUpdater extends NominatimConnector {
     private ReentrantLock updateLock = new ReentrantLock();
 
 
-    // One-item cache for address terms. Speeds up processing of rank 30 objects.
-    private long parentPlaceId = -1;
-    private List<AddressRow> parentTerms = null;
-
-
     public NominatimUpdater(String host, int port, String database, String username, String password) {
         this(host, port, database, username, password, new PostgisDataAdapter());
     }
@@ -90,14 +134,17 @@ public class NominatimUpdater extends NominatimConnector {
             assert (doc != null);
 
             Map<String, String> address = dbutils.getMap(rs, "address");
+            Map<String, String> country = countryNames.get(rs.getString("country_code"));
 
-            doc.completePlace(getAddresses(doc));
-            // Add address last, so it takes precedence.
-            doc.address(address);
+            return new PendingResult(doc, addressRows -> {
+                doc.completePlace(addressRows);
+                // Add address last, so it takes precedence.
+                doc.address(address);
 
-            doc.setCountry(countryNames.get(rs.getString("country_code")));
+                doc.setCountry(country);
 
-            return NominatimResult.fromAddress(doc, address);
+                return NominatimResult.fromAddress(doc, address);
+            });
         };
 
         // Setup handling of interpolation table. There are two different formats depending on the Nominatim version.
@@ -105,21 +152,24 @@ public class NominatimUpdater extends NominatimConnector {
         final OsmlineRowMapper osmlineRowMapper = new OsmlineRowMapper();
         osmlineToNominatimResult = (rs, rownum) -> {
             PhotonDoc doc = osmlineRowMapper.mapRow(rs, rownum);
-
-            doc.completePlace(getAddresses(doc));
-            doc.setCountry(countryNames.get(rs.getString("country_code")));
+            Map<String, String> country = countryNames.get(rs.getString("country_code"));
 
             Geometry geometry = dbutils.extractGeometry(rs, "linegeo");
+            long startnumber = rs.getLong("startnumber");
+            long endnumber = rs.getLong("endnumber");
+            long step = hasNewStyleInterpolation ? rs.getLong("step") : 0;
+            String interpolationtype = hasNewStyleInterpolation ? null : rs.getString("interpolationtype");
 
-            if (hasNewStyleInterpolation) {
-                return NominatimResult.fromInterpolation(
-                        doc, rs.getLong("startnumber"), rs.getLong("endnumber"),
-                        rs.getLong("step"), geometry);
-            }
+            return new PendingResult(doc, addressRows -> {
+                doc.completePlace(addressRows);
+                doc.setCountry(country);
 
-            return NominatimResult.fromInterpolation(
-                    doc, rs.getLong("startnumber"), rs.getLong("endnumber"),
-                    rs.getString("interpolationtype"), geometry);
+                if (hasNewStyleInterpolation) {
+                    return NominatimResult.fromInterpolation(doc, startnumber, endnumber, step, geometry);
+                }
+
+                return NominatimResult.fromInterpolation(doc, startnumber, endnumber, interpolationtype, geometry);
+            });
         };
     }
 
@@ -134,8 +184,78 @@ public class NominatimUpdater extends NominatimConnector {
         return (result != null) && (result > 0);
     }
 
+    /**
+     * Add the index on the update log, when it is missing.
+     *
+     * Creating the index needs to be done by the owner of the table. When
+     * the update user lacks the rights, only a warning is printed.
+     */
+    public void prepareUpdateLog() {
+        try {
+            txTemplate.execute(status -> {
+                template.execute(UPDATE_LOG_INDEX_SQL);
+                return null;
+            });
+        } catch (DataAccessException e) {
+            LOGGER.warn("Cannot create index on the update log ({}). Reading updates will be slow. "
+                    + "Run '{}' as owner of the table photon_updates.", e.getMessage(), UPDATE_LOG_INDEX_SQL);
+        }
+    }
+
+    /**
+     * Check if there are any entries in the update log.
+     */
+    public boolean hasPendingUpdates() {
+        Boolean result = template.queryForObject("SELECT EXISTS(SELECT * FROM photon_updates)", Boolean.class);
+        return result != null && result;
+    }
+
+    /**
+     * Open a database connection that receives a notification whenever
+     * an entry is added to the update log.
+     *
+     * This only works when the tracking tables have been set up with a
+     * version of Photon that supports notifications.
+     */
+    public Connection listenForUpdates() throws SQLException {
+        final Connection conn = Objects.requireNonNull(template.getDataSource()).getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(true);
+            stmt.execute("LISTEN " + UPDATE_CHANNEL);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+
+        return conn;
+    }
+
     public void setUpdater(Updater updater) {
-        this.updater = updater;
+        setUpdaters(List.of(updater));
+    }
+
+    /**
+     * Set the updaters used to apply the changes to the Photon database.
+     *
+     * When more than one updater is given, the changes are applied in
+     * parallel. The places are partitioned by their place ID and each
+     * partition is processed in its own thread with its own updater.
+     */
+    public void setUpdaters(List<Updater> updaters) {
+        if (updatePool != null) {
+            updatePool.shutdown();
+            updatePool = null;
+        }
+
+        this.updaters = List.copyOf(updaters);
+        if (updaters.size() > 1) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            updatePool = Executors.newFixedThreadPool(updaters.size(), r -> {
+                Thread thread = new Thread(r, "update-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
     }
 
     public void initUpdates(String updateUser) {
@@ -149,75 +269,206 @@ public class NominatimUpdater extends NominatimConnector {
         });
     }
 
-    public void update() {
+    /**
+     * Apply all changes from the update log to the Photon database.
+     *
+     * @return True, if all changes have been applied. False, when some
+     *         changes could not be saved and remain in the update log or
+     *         when another update is already running.
+     */
+    public boolean update() {
         if (updateLock.tryLock()) {
             try {
                 loadCountryNames();
-                updateFromPlacex();
-                updateFromInterpolations();
-                updater.finish();
-                LOGGER.info("Finished updating");
+                invalidatePendingParents();
+                boolean success = updateFromTable("placex", "places", this::updatePlaces,
+                        "location_property_osmline");
+                // .isUsefulForIndex() should always return true for documents
+                // created from interpolations so no need to check them
+                success &= updateFromTable("location_property_osmline", "interpolations", this::updateInterpolations,
+                        null);
+                updaters.forEach(Updater::finish);
+                if (success) {
+                    LOGGER.info("Finished updating");
+                } else {
+                    LOGGER.error("Update incomplete. Unsaved changes are kept in the update log.");
+                }
+                return success;
             } finally {
                 updateLock.unlock();
             }
-        } else {
-            LOGGER.info("Update already in progress");
         }
+
+        LOGGER.info("Update already in progress");
+        return false;
+    }
+
+    /**
+     * Drop all places with pending changes from the parent cache.
+     *
+     * The cache is kept between update runs and a changed parent may only
+     * come up in a later chunk than the places that refer to it.
+     */
+    private void invalidatePendingParents() {
+        parentCache.invalidate(template.queryForList(
+                "SELECT DISTINCT place_id FROM photon_updates WHERE rel = 'placex'", Long.class));
+    }
+
+    /**
+     * Apply all changes recorded in the update log for the given table.
+     *
+     * The next chunk is always read before the current one is applied, so
+     * that the last chunk of the update run can be flushed as such.
+     *
+     * @param nextTable Table that is updated afterwards or null, if this is the last one.
+     *
+     * @return True, if all entries of the update log have been applied.
+     */
+    private boolean updateFromTable(String table, String label, BatchProcessor processor, String nextTable) {
+        LOGGER.info("Starting update of {}", label);
+        final int batchSize = PLACE_BATCH_SIZE * updaters.size();
+        final UpdateCounts counts = new UpdateCounts();
+        long lastPlaceId = -1;
+        boolean success = true;
+        List<UpdateRow> batch = getPlaces(table, lastPlaceId, batchSize);
+        while (!batch.isEmpty()) {
+            final long batchEnd = batch.get(batch.size() - 1).getPlaceId();
+            final List<UpdateRow> nextBatch = getPlaces(table, batchEnd, batchSize);
+            final boolean lastBatch = nextBatch.isEmpty() && (nextTable == null || !hasLogEntries(nextTable));
+
+            // Changed places may be parents of other places in the batch.
+            parentCache.invalidate(batch.stream().map(UpdateRow::getPlaceId).collect(Collectors.toList()));
+
+            if (!applyBatch(batch, processor, counts, lastBatch)) {
+                LOGGER.error("Updates were not saved. Keeping the update log for table {} from place {} onwards.",
+                        table, lastPlaceId + 1);
+                success = false;
+                break;
+            }
+
+            removeFromUpdateLog(table, batch);
+            lastPlaceId = batchEnd;
+            batch = nextBatch;
+        }
+
+        LOGGER.info("{} {} created or updated, {} deleted", counts.updated, label, counts.deleted);
+        return success;
+    }
+
+    private boolean hasLogEntries(String table) {
+        Boolean result = template.queryForObject(
+                "SELECT EXISTS(SELECT * FROM photon_updates WHERE rel = ?)", Boolean.class, table);
+        return result != null && result;
+    }
+
+    /**
+     * Apply the changes for a chunk of the update log and wait until
+     * they have been acknowledged by the database.
+     *
+     * @param lastBatch Set, when this is the last chunk of the update run.
+     *
+     * @return True, if all changes have been saved successfully.
+     */
+    private boolean applyBatch(List<UpdateRow> batch, BatchProcessor processor, UpdateCounts counts,
+                               boolean lastBatch) {
+        if (updatePool == null) {
+            final Updater updater = updaters.get(0);
+            processor.process(batch, updater, counts);
+            return lastBatch ? updater.flushFinal() : updater.flush();
+        }
+
+        // All updates of a place always end up in the same partition.
+        final int numPartitions = updaters.size();
+        final List<List<UpdateRow>> partitions = new ArrayList<>(numPartitions);
+        for (int i = 0; i < numPartitions; ++i) {
+            partitions.add(new ArrayList<>());
+        }
+        for (UpdateRow row : batch) {
+            partitions.get(Math.floorMod(row.getPlaceId().hashCode(), numPartitions)).add(row);
+        }
+
+        final List<UpdateCounts> partitionCounts = new ArrayList<>(numPartitions);
+        final List<Future<Boolean>> results = new ArrayList<>(numPartitions);
+        for (int i = 0; i < numPartitions; ++i) {
+            final List<UpdateRow> partition = partitions.get(i);
+            final Updater updater = updaters.get(i);
+            final UpdateCounts partCounts = new UpdateCounts();
+            partitionCounts.add(partCounts);
+            results.add(updatePool.submit(() -> {
+                processor.process(partition, updater, partCounts);
+                return lastBatch ? updater.flushFinal() : updater.flush();
+            }));
+        }
+
+        boolean success = true;
+        for (Future<Boolean> result : results) {
+            try {
+                success &= result.get();
+            } catch (ExecutionException e) {
+                LOGGER.error("Error while applying updates", e.getCause());
+                success = false;
+            } catch (InterruptedException e) {
+                LOGGER.warn("Thread interrupted while waiting for updates.");
+                // Restore interrupted state.
+                Thread.currentThread().interrupt();
+                success = false;
+            }
+        }
+
+        partitionCounts.forEach(counts::add);
+
+        return success;
     }
 
-    private void updateFromPlacex() {
-        LOGGER.info("Starting place updates");
-        int updatedPlaces = 0;
-        int deletedPlaces = 0;
-        for (UpdateRow place : getPlaces("placex")) {
+    private void updatePlaces(List<UpdateRow> batch, Updater updater, UpdateCounts counts) {
+        final Map<Long, List<PhotonDoc>> docsByPlace = getByPlaceIds(getIdsToUpdate(batch));
+        final Map<Long, Integer> multidocPlaces = new LinkedHashMap<>();
+
+        for (UpdateRow place : batch) {
             long placeId = place.getPlaceId();
             int objectId = -1;
             boolean checkForMultidoc = true;
 
             if (!place.isToDelete()) {
-                final List<PhotonDoc> updatedDocs = getByPlaceId(placeId);
+                final List<PhotonDoc> updatedDocs = docsByPlace.get(placeId);
                 if (updatedDocs != null && !updatedDocs.isEmpty() && updatedDocs.get(0).isUsefulForIndex()) {
                     checkForMultidoc = updatedDocs.get(0).getRankAddress() == 30;
-                    ++updatedPlaces;
+                    ++counts.updated;
                     for (PhotonDoc updatedDoc : updatedDocs) {
-                            updater.create(updatedDoc, ++objectId);
+                        updater.create(updatedDoc, ++objectId);
                     }
                 }
             }
 
             if (objectId < 0) {
-                ++deletedPlaces;
+                ++counts.deleted;
                 updater.delete(placeId, 0);
                 objectId = 0;
             }
 
             if (checkForMultidoc) {
-                while (updater.exists(placeId, ++objectId)) {
-                    updater.delete(placeId, objectId);
-                }
+                multidocPlaces.put(placeId, objectId + 1);
             }
         }
 
-        LOGGER.info("{} places created or updated, {} deleted", updatedPlaces, deletedPlaces);
+        updater.deleteSubsequent(multidocPlaces);
     }
 
     /**
      * Update documents generated from address interpolations.
      */
-    private void updateFromInterpolations() {
-        // .isUsefulForIndex() should always return true for documents
-        // created from interpolations so no need to check them
-        LOGGER.info("Starting interpolations");
-        int updatedInterpolations = 0;
-        int deletedInterpolations = 0;
-        for (UpdateRow place : getPlaces("location_property_osmline")) {
+    private void updateInterpolations(List<UpdateRow> batch, Updater updater, UpdateCounts counts) {
+        final Map<Long, List<PhotonDoc>> docsByPlace = getInterpolationsByPlaceIds(getIdsToUpdate(batch));
+        final Map<Long, Integer> multidocPlaces = new LinkedHashMap<>();
+
+        for (UpdateRow place : batch) {
             long placeId = place.getPlaceId();
             int objectId = -1;
 
             if (!place.isToDelete()) {
-                final List<PhotonDoc> updatedDocs = getInterpolationsByPlaceId(placeId);
+                final List<PhotonDoc> updatedDocs = docsByPlace.get(placeId);
                 if (updatedDocs != null) {
-                    ++updatedInterpolations;
+                    ++counts.updated;
                     for (PhotonDoc updatedDoc : updatedDocs) {
                         updater.create(updatedDoc, ++objectId);
                     }
@@ -225,106 +476,257 @@ public class NominatimUpdater extends NominatimConnector {
             }
 
             if (objectId < 0) {
-                ++deletedInterpolations;
+                ++counts.deleted;
             }
 
-            while (updater.exists(placeId, ++objectId)) {
-                updater.delete(placeId, objectId);
-            }
+            multidocPlaces.put(placeId, objectId + 1);
         }
 
-        LOGGER.info("{} interpolations created or updated, {} deleted", updatedInterpolations, deletedInterpolations);
-    }
-
-    private List<UpdateRow> getPlaces(String table) {
-        return txTemplate.execute(status -> {
-            List<UpdateRow> results = template.query(dbutils.deleteReturning(
-                            "DELETE FROM photon_updates WHERE rel = ?", "place_id, operation, indexed_date"),
-                    (rs, rowNum) -> {
-                        boolean isDelete = "DELETE".equals(rs.getString("operation"));
-                        return new UpdateRow(rs.getLong("place_id"), isDelete, rs.getTimestamp("indexed_date"));
-                    }, table);
-
-            // For each place only keep the newest item.
-            // Order doesn't really matter because updates of each place are independent now.
-            results.sort(Comparator.comparing(UpdateRow::getPlaceId).thenComparing(
-                    Comparator.comparing(UpdateRow::getUpdateDate).reversed()));
-
-            ArrayList<UpdateRow> todo = new ArrayList<>();
-            long prevId = -1;
-            for (UpdateRow row : results) {
-                if (row.getPlaceId() != prevId) {
-                    prevId = row.getPlaceId();
-                    todo.add(row);
-                }
+        updater.deleteSubsequent(multidocPlaces);
+    }
+
+    /**
+     * Read the next chunk of entries from the update log.
+     *
+     * The update log is processed in order of place IDs. A chunk contains
+     * all entries for a range of place IDs, only the newest entry of each
+     * place is returned.
+     *
+     * @param table Name of the table to get the updates for.
+     * @param afterPlaceId Last place ID of the previous chunk.
+     * @param limit Maximum number of entries to read.
+     */
+    private List<UpdateRow> getPlaces(String table, long afterPlaceId, int limit) {
+        List<UpdateRow> results = template.query(
+                "SELECT place_id, operation, indexed_date FROM photon_updates"
+                        + " WHERE rel = ? AND place_id > ? AND place_id <= ("
+                        + "   SELECT max(place_id) FROM ("
+                        + "     SELECT place_id FROM photon_updates WHERE rel = ? AND place_id > ?"
+                        + "     ORDER BY place_id LIMIT ?) AS chunk)"
+                        + " ORDER BY place_id, indexed_date DESC",
+                (rs, rowNum) -> {
+                    boolean isDelete = "DELETE".equals(rs.getString("operation"));
+                    return new UpdateRow(rs.getLong("place_id"), isDelete, rs.getTimestamp("indexed_date"));
+                }, table, afterPlaceId, table, afterPlaceId, limit);
+
+        // For each place only keep the newest item.
+        ArrayList<UpdateRow> todo = new ArrayList<>();
+        long prevId = -1;
+        for (UpdateRow row : results) {
+            if (row.getPlaceId() != prevId) {
+                prevId = row.getPlaceId();
+                todo.add(row);
             }
+        }
 
-            return todo;
-        });
+        return todo;
     }
 
+    /**
+     * Remove a processed chunk from the update log.
+     *
+     * This must only be called once the updaters have acknowledged all
+     * changes, so that the entries are processed again after a failure.
+     * Only the entries that have been read are removed. For each place,
+     * entries that have been added while the chunk was processed are kept.
+     */
+    private void removeFromUpdateLog(String table, List<UpdateRow> rows) {
+        final List<Object[]> args = new ArrayList<>(rows.size());
+        for (UpdateRow row : rows) {
+            args.add(new Object[]{table, row.getPlaceId(), row.getUpdateDate()});
+        }
+
+        // The connections are not in auto-commit mode, so the deletion needs an explicit transaction.
+        txTemplate.execute(status -> template.batchUpdate(
+                "DELETE FROM photon_updates WHERE rel = ? AND place_id = ? AND indexed_date <= ?",
+                args));
+    }
 
-    public List<PhotonDoc> getByPlaceId(long placeId) {
-        List<NominatimResult> result = template.query(
-                SELECT_COLS_PLACEX + " FROM placex WHERE place_id = ? and indexed_status = 0",
-                placeToNominatimResult, placeId);
+    private static List<Long> getIdsToUpdate(List<UpdateRow> rows) {
+        final List<Long> placeIds = new ArrayList<>(rows.size());
+        for (UpdateRow row : rows) {
+            if (!row.isToDelete()) {
+                placeIds.add(row.getPlaceId());
+            }
+        }
 
-        return result.isEmpty() ? null : result.get(0).getDocsWithHousenumber();
+        return placeIds;
+    }
+
+    public List<PhotonDoc> getByPlaceId(long placeId) {
+        return getByPlaceIds(List.of(placeId)).get(placeId);
     }
 
     public List<PhotonDoc> getInterpolationsByPlaceId(long placeId) {
-        List<NominatimResult> result = template.query(
+        return getInterpolationsByPlaceIds(List.of(placeId)).get(placeId);
+    }
+
+    /**
+     * Get the documents for a set of places from placex.
+     *
+     * @return The documents for each place ID. Places which are not found
+     *         or not yet indexed are missing from the map.
+     */
+    public Map<Long, List<PhotonDoc>> getByPlaceIds(Collection<Long> placeIds) {
+        return completeResults(queryByPlaceIds(
+                SELECT_COLS_PLACEX + " FROM placex WHERE place_id = ANY(?) and indexed_status = 0",
+                placeIds, placeToNominatimResult));
+    }
+
+    /**
+     * Get the documents for a set of address interpolations.
+     *
+     * @return The documents for each place ID. Interpolations which are not
+     *         found or not yet indexed are missing from the map.
+     */
+    public Map<Long, List<PhotonDoc>> getInterpolationsByPlaceIds(Collection<Long> placeIds) {
+        return completeResults(queryByPlaceIds(
                 (hasNewStyleInterpolation ? SELECT_OSMLINE_NEW_STYLE : SELECT_OSMLINE_OLD_STYLE)
-                        + " FROM location_property_osmline WHERE place_id = ? and indexed_status = 0",
-                osmlineToNominatimResult, placeId);
+                        + " FROM location_property_osmline WHERE place_id = ANY(?) and indexed_status = 0",
+                placeIds, osmlineToNominatimResult));
+    }
 
-        return result.isEmpty() ? null : result.get(0).getDocsWithHousenumber();
+    private <T> List<T> queryByPlaceIds(String sql, Collection<Long> placeIds, RowMapper<T> rowMapper) {
+        if (placeIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return template.query(sql, ps -> setPlaceIds(ps, placeIds), rowMapper);
     }
 
+    private static void setPlaceIds(PreparedStatement ps, Collection<Long> placeIds) throws SQLException {
+        ps.setArray(1, ps.getConnection().createArrayOf("bigint", placeIds.toArray()));
+    }
 
-    List<AddressRow> getAddresses(PhotonDoc doc) {
-        RowMapper<AddressRow> rowMapper = (rs, rowNum) -> new AddressRow(
+    /**
+     * Add the address information to the given places and compute the final documents.
+     *
+     * The address terms for all places are fetched together, so that
+     * each batch of places needs only two more queries. The terms of
+     * parent places are taken from the cache, where possible.
+     */
+    private Map<Long, List<PhotonDoc>> completeResults(List<PendingResult> results) {
+        final Set<Long> placeIds = new HashSet<>();
+        final Set<Long> parentIds = new HashSet<>();
+        for (PendingResult result : results) {
+            final AddressType atype = result.doc.getAddressType();
+            if (atype == AddressType.HOUSE) {
+                parentIds.add(result.doc.getParentPlaceId());
+            } else if (atype != null && atype != AddressType.COUNTRY) {
+                placeIds.add(result.doc.getPlaceId());
+            }
+        }
+
+        final Map<Long, List<AddressRow>> parentTerms = new HashMap<>();
+        final Set<Long> missingParentIds = new HashSet<>();
+        for (long parentId : parentIds) {
+            final List<AddressRow> cached = parentCache.get(parentId);
+            if (cached == null) {
+                missingParentIds.add(parentId);
+            } else {
+                parentTerms.put(parentId, cached);
+            }
+        }
+
+        final Map<Long, List<AddressRow>> placeTerms = getAddressLines(placeIds, missingParentIds);
+        getParentTerms(missingParentIds, placeTerms).forEach((parentId, terms) -> {
+            parentCache.put(parentId, terms);
+            parentTerms.put(parentId, terms);
+        });
+
+        final Map<Long, List<PhotonDoc>> docs = new HashMap<>();
+        for (PendingResult result : results) {
+            final AddressType atype = result.doc.getAddressType();
+            final List<AddressRow> terms;
+            if (atype == null || atype == AddressType.COUNTRY) {
+                terms = Collections.emptyList();
+            } else if (atype == AddressType.HOUSE) {
+                terms = parentTerms.getOrDefault(result.doc.getParentPlaceId(), Collections.emptyList());
+            } else {
+                terms = placeTerms.getOrDefault(result.doc.getPlaceId(), Collections.emptyList());
+            }
+
+            docs.put(result.doc.getPlaceId(), result.complete.apply(terms).getDocsWithHousenumber());
+        }
+
+        return docs;
+    }
+
+    /**
+     * Get the address lines of all given places, ordered by importance.
+     */
+    private Map<Long, List<AddressRow>> getAddressLines(Set<Long> placeIds, Set<Long> parentIds) {
+        final Set<Long> allIds = new HashSet<>(placeIds);
+        allIds.addAll(parentIds);
+
+        final Map<Long, List<AddressRow>> terms = new HashMap<>();
+        if (!allIds.isEmpty()) {
+            template.query(SELECT_ADDRESS_LINES, ps -> setPlaceIds(ps, allIds),
+                    rs -> {
+                        terms.computeIfAbsent(rs.getLong("address_for"), k -> new ArrayList<>())
+                                .add(mapAddressRow(rs));
+                    });
+        }
+
+        return terms;
+    }
+
+    /**
+     * Get the address terms for the children of the given parent places.
+     * These are made up of the parent place itself followed by the
+     * address lines of the parent.
+     */
+    private Map<Long, List<AddressRow>> getParentTerms(Set<Long> parentIds, Map<Long, List<AddressRow>> addressLines) {
+        final Map<Long, List<AddressRow>> terms = new HashMap<>();
+        for (long parentId : parentIds) {
+            terms.put(parentId, new ArrayList<>(addressLines.getOrDefault(parentId, Collections.emptyList())));
+        }
+
+        if (!parentIds.isEmpty()) {
+            template.query(SELECT_COLS_ADDRESS + ", p.place_id FROM placex p WHERE p.place_id = ANY(?)",
+                    ps -> setPlaceIds(ps, parentIds),
+                    rs -> {
+                        terms.get(rs.getLong("place_id")).add(0, mapAddressRow(rs));
+                    });
+        }
+
+        return terms;
+    }
+
+    private AddressRow mapAddressRow(ResultSet rs) throws SQLException {
+        return new AddressRow(
                 dbutils.getMap(rs, "name"),
                 rs.getString("class"),
                 rs.getString("type"),
-                rs.getInt("rank_address")
-        );
+                rs.getInt("rank_address"));
+    }
 
-        AddressType atype = doc.getAddressType();
+    /**
+     * Document read from the database, which still needs to be completed
+     * with its address terms.
+     */
+    private static class PendingResult {
+        private final PhotonDoc doc;
+        private final Function<List<AddressRow>, NominatimResult> complete;
 
-        if (atype == null || atype == AddressType.COUNTRY) {
-            return Collections.emptyList();
+        PendingResult(PhotonDoc doc, Function<List<AddressRow>, NominatimResult> complete) {
+            this.doc = doc;
+            this.complete = complete;
         }
+    }
 
-        List<AddressRow> terms = null;
-
-        if (atype == AddressType.HOUSE) {
-            long placeId = doc.getParentPlaceId();
-            if (placeId != parentPlaceId) {
-                parentTerms = template.query(SELECT_COLS_ADDRESS
-                                + " FROM placex p, place_addressline pa"
-                                + " WHERE p.place_id = pa.address_place_id and pa.place_id = ?"
-                                + " and pa.cached_rank_address > 4 and pa.address_place_id != ? and pa.isaddress"
-                                + " ORDER BY rank_address desc, fromarea desc, distance asc, rank_search desc",
-                        rowMapper, placeId, placeId);
-
-                // need to add the term for the parent place ID itself
-                parentTerms.addAll(0, template.query(SELECT_COLS_ADDRESS + " FROM placex p WHERE p.place_id = ?",
-                        rowMapper, placeId));
-                parentPlaceId = placeId;
-            }
-            terms = parentTerms;
-
-        } else {
-            long placeId = doc.getPlaceId();
-            terms = template.query(SELECT_COLS_ADDRESS
-                            + " FROM placex p, place_addressline pa"
-                            + " WHERE p.place_id = pa.address_place_id and pa.place_id = ?"
-                            + " and pa.cached_rank_address > 4 and pa.address_place_id != ? and pa.isaddress"
-                            + " ORDER BY rank_address desc, fromarea desc, distance asc, rank_search desc",
-                    rowMapper, placeId, placeId);
-        }
+    @FunctionalInterface
+    private interface BatchProcessor {
+        void process(List<UpdateRow> batch, Updater updater, UpdateCounts counts);
+    }
 
-        return terms;
+    private static class UpdateCounts {
+        private int updated = 0;
+        private int deleted = 0;
+
+        void add(UpdateCounts other) {
+            updated += other.updated;
+            deleted += other.deleted;
+        }
     }
 }
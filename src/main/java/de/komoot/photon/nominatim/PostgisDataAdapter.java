@@ -4,6 +4,7 @@ import net.postgis.jdbc.PGgeometry;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKTReader;
+import org.postgresql.util.HStoreConverter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 
@@ -27,6 +28,15 @@ public class PostgisDataAdapter implements DBDataAdapter {
         return map;
     }
 
+    @Override
+    public Map<String, String> parseMap(String rawMap) {
+        if (rawMap == null) {
+            return new HashMap<>();
+        }
+
+        return HStoreConverter.fromString(rawMap);
+    }
+
     @Override
     public Geometry extractGeometry(ResultSet rs, String columnName) throws SQLException {
         PGgeometry wkt = (PGgeometry) rs.getObject(columnName);
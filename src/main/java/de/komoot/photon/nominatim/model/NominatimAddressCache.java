@@ -1,5 +1,6 @@
 package de.komoot.photon.nominatim.model;
 
+import de.komoot.photon.ImportStatistics;
 import de.komoot.photon.nominatim.DBDataAdapter;
 import org.json.JSONArray;
 import org.slf4j.Logger;
@@ -22,6 +23,15 @@ public class NominatimAddressCache {
             " WHERE rank_address between 5 and 25 AND linked_place_id is null";
 
     private final Map<Long, AddressRow> addresses = new HashMap<>();
+    private final ImportStatistics statistics;
+
+    public NominatimAddressCache() {
+        this(new ImportStatistics());
+    }
+
+    public NominatimAddressCache(ImportStatistics statistics) {
+        this.statistics = statistics;
+    }
 
     public void loadCountryAddresses(JdbcTemplate template, DBDataAdapter dbutils, String countryCode) {
         final RowCallbackHandler rowMapper = rs ->
@@ -55,6 +65,7 @@ public class NominatimAddressCache {
                 Long placeId = addressPlaces.optLong(i);
                 if (placeId != null) {
                     AddressRow row = addresses.get(placeId);
+                    statistics.countAddressLookup(row != null);
                     if (row != null) {
                         outlist.add(row);
                     }
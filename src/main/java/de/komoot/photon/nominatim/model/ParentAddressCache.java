@@ -0,0 +1,55 @@
+package de.komoot.photon.nominatim.model;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded cache for the address terms of parent places.
+ *
+ * Houses and POIs inherit the address of their parent place. During updates
+ * many objects with the same parent tend to come in together, so the terms
+ * of recently used parents are kept in memory. The least recently used
+ * entries are dropped when the cache is full.
+ *
+ * The cache may be used from multiple threads.
+ */
+public class ParentAddressCache {
+    private final Map<Long, List<AddressRow>> terms;
+
+    public ParentAddressCache(int maxSize) {
+        terms = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<AddressRow>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get the address terms of the given parent place.
+     *
+     * @return The cached terms or null, if the place is not in the cache.
+     */
+    public synchronized List<AddressRow> get(long placeId) {
+        return terms.get(placeId);
+    }
+
+    public synchronized void put(long placeId, List<AddressRow> addressTerms) {
+        terms.put(placeId, List.copyOf(addressTerms));
+    }
+
+    /**
+     * Remove the given places from the cache, because their data has changed.
+     */
+    public synchronized void invalidate(Collection<Long> placeIds) {
+        for (Long placeId : placeIds) {
+            terms.remove(placeId);
+        }
+    }
+
+    public synchronized int size() {
+        return terms.size();
+    }
+}
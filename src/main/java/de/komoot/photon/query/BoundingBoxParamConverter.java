@@ -2,8 +2,6 @@ package de.komoot.photon.query;
 
 import org.locationtech.jts.geom.Envelope;
 
-import spark.Request;
-
 /**
  * Converter which transforms a bbox parameter into an Envelope and performs format checking.
  */
@@ -12,8 +10,8 @@ public class BoundingBoxParamConverter {
     public static final String INVALID_BBOX_ERROR_MESSAGE = "Invalid number of supplied coordinates for parameter 'bbox', expected format is: minLon,minLat,maxLon,maxLat";
     public static final String INVALID_BBOX_BOUNDS_MESSAGE = "Invalid bounds for parameter 'bbox', expected values minLat, maxLat element [-90,90], minLon, maxLon element [-180,180]";
 
-    public Envelope apply(Request webRequest) throws BadRequestException {
-        String bboxParam = webRequest.queryParams("bbox");
+    public Envelope apply(RequestParameters webRequest) throws BadRequestException {
+        String bboxParam = webRequest.get("bbox");
         if (bboxParam == null) {
             return null;
         }
@@ -0,0 +1,62 @@
+package de.komoot.photon.query;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Set;
+
+/**
+ * Parameters given as a JSON object, as used for lines of a batch request.
+ *
+ * Each key of the object is a parameter. Parameters that may be repeated
+ * can be given as an array. Headers are taken from the web request the
+ * parameters were sent with.
+ */
+public class JsonRequestParameters implements RequestParameters {
+    private final JSONObject params;
+    private final RequestParameters outerRequest;
+
+    public JsonRequestParameters(JSONObject params, RequestParameters outerRequest) {
+        this.params = params;
+        this.outerRequest = outerRequest;
+    }
+
+    @Override
+    public Set<String> names() {
+        return params.keySet();
+    }
+
+    @Override
+    public String get(String name) {
+        Object value = params.opt(name);
+        if (value instanceof JSONArray) {
+            value = ((JSONArray) value).opt(0);
+        }
+
+        return value == null || JSONObject.NULL.equals(value) ? null : value.toString();
+    }
+
+    @Override
+    public String[] getAll(String name) {
+        final Object value = params.opt(name);
+        if (value == null || JSONObject.NULL.equals(value)) {
+            return new String[0];
+        }
+
+        if (value instanceof JSONArray) {
+            final JSONArray values = (JSONArray) value;
+            final String[] result = new String[values.length()];
+            for (int i = 0; i < values.length(); ++i) {
+                result[i] = values.get(i).toString();
+            }
+            return result;
+        }
+
+        return new String[]{value.toString()};
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return outerRequest == null ? null : outerRequest.getHeader(name);
+    }
+}
@@ -5,8 +5,6 @@ import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.PrecisionModel;
 
-import spark.Request;
-
 /**
  * Convertor which transforms lon/lat parameter into a location and validates the given coordinates.
  */
@@ -18,10 +16,10 @@ public class LocationParamConverter {
         this.mandatory = mandatory;
     }
     
-    public Point apply(Request webRequest) throws BadRequestException {
+    public Point apply(RequestParameters webRequest) throws BadRequestException {
         Point location;
-        String lonParam = webRequest.queryParams("lon");
-        String latParam = webRequest.queryParams("lat");
+        String lonParam = webRequest.get("lon");
+        String latParam = webRequest.get("lat");
         if (!mandatory && lonParam == null && latParam == null) {
             return null;
         }
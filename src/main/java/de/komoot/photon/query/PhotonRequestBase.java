@@ -27,6 +27,22 @@ public class PhotonRequestBase
         this.language = language;
     }
 
+    /**
+     * Create a copy of the given request.
+     */
+    protected PhotonRequestBase(PhotonRequestBase other)
+    {
+        this.language = other.language;
+        this.limit = other.limit;
+        this.locationForBias = other.locationForBias;
+        this.scale = other.scale;
+        this.zoom = other.zoom;
+        this.bbox = other.bbox;
+        this.debug = other.debug;
+        this.osmTagFilters.addAll(other.osmTagFilters);
+        this.layerFilters = new HashSet<>(other.layerFilters);
+    }
+
     public int getLimit() {
         return limit;
     }
@@ -1,7 +1,6 @@
 package de.komoot.photon.query;
 
 import de.komoot.photon.searcher.TagFilter;
-import spark.QueryParamsMap;
 import spark.Request;
 
 import java.util.Arrays;
@@ -36,8 +35,12 @@ public class PhotonRequestFactory {
     }
 
     public StructuredPhotonRequest createStructured(Request webRequest) throws BadRequestException {
+        return createStructured(new WebRequestParameters(webRequest));
+    }
+
+    public StructuredPhotonRequest createStructured(RequestParameters webRequest) throws BadRequestException {
         boolean hasAddressQueryParam = false;
-        for (String queryParam : webRequest.queryParams()) {
+        for (String queryParam : webRequest.names()) {
             if (!STRUCTURED_REQUEST_QUERY_PARAMS.contains(queryParam))
                 throw new BadRequestException(400, "unknown query parameter '" + queryParam + "'.  Allowed parameters are: " + STRUCTURED_REQUEST_QUERY_PARAMS);
 
@@ -50,14 +53,14 @@ public class PhotonRequestFactory {
             throw new BadRequestException(400, "at least one of the parameters " + STRUCTURED_ADDRESS_FIELDS + " is required.");
 
         StructuredPhotonRequest result = new StructuredPhotonRequest(languageResolver.resolveRequestedLanguage(webRequest));
-        result.setCountryCode(webRequest.queryParams("countrycode"));
-        result.setState(webRequest.queryParams("state"));
-        result.setCounty(webRequest.queryParams("county"));
-        result.setCity(webRequest.queryParams("city"));
-        result.setPostCode(webRequest.queryParams("postcode"));
-        result.setDistrict(webRequest.queryParams("district"));
-        result.setStreet(webRequest.queryParams("street"));
-        result.setHouseNumber(webRequest.queryParams("housenumber"));
+        result.setCountryCode(webRequest.get("countrycode"));
+        result.setState(webRequest.get("state"));
+        result.setCounty(webRequest.get("county"));
+        result.setCity(webRequest.get("city"));
+        result.setPostCode(webRequest.get("postcode"));
+        result.setDistrict(webRequest.get("district"));
+        result.setStreet(webRequest.get("street"));
+        result.setHouseNumber(webRequest.get("housenumber"));
 
         addCommonParameters(webRequest, result);
 
@@ -65,11 +68,15 @@ public class PhotonRequestFactory {
     }
 
     public PhotonRequest create(Request webRequest) throws BadRequestException {
-        for (String queryParam : webRequest.queryParams())
+        return create(new WebRequestParameters(webRequest));
+    }
+
+    public PhotonRequest create(RequestParameters webRequest) throws BadRequestException {
+        for (String queryParam : webRequest.names())
             if (!REQUEST_QUERY_PARAMS.contains(queryParam))
                 throw new BadRequestException(400, "unknown query parameter '" + queryParam + "'.  Allowed parameters are: " + REQUEST_QUERY_PARAMS);
 
-        String query = webRequest.queryParams("q");
+        String query = webRequest.get("q");
         if (query == null) {
             throw new BadRequestException(400, "missing search term 'q': /?q=berlin");
         }
@@ -81,7 +88,7 @@ public class PhotonRequestFactory {
         return request;
     }
 
-    private void addCommonParameters(Request webRequest, PhotonRequestBase request) throws BadRequestException {
+    private void addCommonParameters(RequestParameters webRequest, PhotonRequestBase request) throws BadRequestException {
         Integer limit = parseInt(webRequest, "limit");
         if (limit != null) {
             request.setLimit(Integer.max(Integer.min(limit, maxResults), 1));
@@ -91,30 +98,27 @@ public class PhotonRequestFactory {
         request.setScale(parseDouble(webRequest, "location_bias_scale"));
         request.setZoom(parseInt(webRequest, "zoom"));
 
-        if (webRequest.queryParams("debug") != null) {
+        if (webRequest.get("debug") != null) {
             request.enableDebug();
         }
 
-        QueryParamsMap tagFiltersQueryMap = webRequest.queryMap("osm_tag");
-        if (tagFiltersQueryMap.hasValue()) {
-            for (String filter : tagFiltersQueryMap.values()) {
-                TagFilter tagFilter = TagFilter.buildOsmTagFilter(filter);
-                if (tagFilter == null) {
-                    throw new BadRequestException(400, String.format("Invalid parameter 'osm_tag=%s': bad syntax for tag filter.", filter));
-                }
-                request.addOsmTagFilter(TagFilter.buildOsmTagFilter(filter));
+        for (String filter : webRequest.getAll("osm_tag")) {
+            TagFilter tagFilter = TagFilter.buildOsmTagFilter(filter);
+            if (tagFilter == null) {
+                throw new BadRequestException(400, String.format("Invalid parameter 'osm_tag=%s': bad syntax for tag filter.", filter));
             }
+            request.addOsmTagFilter(TagFilter.buildOsmTagFilter(filter));
         }
 
-        QueryParamsMap layerFiltersQueryMap = webRequest.queryMap("layer");
-        if (layerFiltersQueryMap.hasValue()) {
-            request.setLayerFilter(layerParamValidator.validate(layerFiltersQueryMap.values()));
+        String[] layerFilters = webRequest.getAll("layer");
+        if (layerFilters.length > 0) {
+            request.setLayerFilter(layerParamValidator.validate(layerFilters));
         }
     }
 
-    private Integer parseInt(Request webRequest, String param) throws BadRequestException {
+    private Integer parseInt(RequestParameters webRequest, String param) throws BadRequestException {
         Integer intVal = null;
-        String value = webRequest.queryParams(param);
+        String value = webRequest.get(param);
 
         if (value != null && !value.isEmpty()) {
             try {
@@ -127,9 +131,9 @@ public class PhotonRequestFactory {
         return intVal;
     }
 
-    private Double parseDouble(Request webRequest, String param) throws BadRequestException {
+    private Double parseDouble(RequestParameters webRequest, String param) throws BadRequestException {
         Double outVal = null;
-        String value = webRequest.queryParams(param);
+        String value = webRequest.get(param);
 
         if (value != null && !value.isEmpty()) {
             try {
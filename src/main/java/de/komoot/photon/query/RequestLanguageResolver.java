@@ -32,7 +32,16 @@ public class RequestLanguageResolver {
      * work either, the default language is returned.
      */
     public String resolveRequestedLanguage(Request webRequest) throws BadRequestException {
-        String language = webRequest.queryParams("lang");
+        return resolveRequestedLanguage(new WebRequestParameters(webRequest));
+    }
+
+    /**
+     * Get the language to use for the response to a request with the given parameters.
+     *
+     * @see #resolveRequestedLanguage(Request)
+     */
+    public String resolveRequestedLanguage(RequestParameters webRequest) throws BadRequestException {
+        String language = webRequest.get("lang");
         if (StringUtils.isBlank(language)) {
             language = fallbackLanguageFromHeaders(webRequest);
             if (StringUtils.isBlank(language))
@@ -50,8 +59,8 @@ public class RequestLanguageResolver {
      * @param webRequest Incoming HTTP request.
      * @return A suitable language header or null if none could be found.
      */
-    private String fallbackLanguageFromHeaders(Request webRequest) {
-        String acceptLanguageHeader = webRequest.headers(ACCEPT_LANGUAGE_HEADER);
+    private String fallbackLanguageFromHeaders(RequestParameters webRequest) {
+        String acceptLanguageHeader = webRequest.getHeader(ACCEPT_LANGUAGE_HEADER);
         if (StringUtils.isBlank(acceptLanguageHeader))
             return null;
 
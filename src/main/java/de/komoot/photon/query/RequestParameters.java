@@ -0,0 +1,47 @@
+package de.komoot.photon.query;
+
+import java.util.Set;
+
+/**
+ * Read access to the parameters of a geocoding request.
+ *
+ * Abstracts over the different ways parameters can be sent, so that the
+ * request factories can be used for query parameters of a web request as
+ * well as for requests in a batch.
+ */
+public interface RequestParameters {
+
+    /**
+     * Get the names of all parameters in the request.
+     */
+    Set<String> names();
+
+    /**
+     * Get the value of a parameter.
+     *
+     * @return The value or null, when the parameter is not set.
+     */
+    String get(String name);
+
+    /**
+     * Get the value of a parameter or a default, when it is not set.
+     */
+    default String getOrDefault(String name, String defaultValue) {
+        final String value = get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Get all values of a parameter that may be repeated.
+     *
+     * @return List of values, empty when the parameter is not set.
+     */
+    String[] getAll(String name);
+
+    /**
+     * Get the value of an HTTP header sent with the request.
+     *
+     * @return The value or null, when the header is not set.
+     */
+    String getHeader(String name);
+}
@@ -69,6 +69,16 @@ public class ReverseRequest implements Serializable {
         return debug;
     }
 
+    /**
+     * Create a copy of this request which searches around a different location.
+     */
+    public ReverseRequest withArea(Point location, double radius, int limit) {
+        final ReverseRequest copy = new ReverseRequest(location, language, radius, queryStringFilter, limit,
+                                                       locationDistanceSort, layerFilters, debug);
+        copy.osmTagFilters.addAll(osmTagFilters);
+        return copy;
+    }
+
     ReverseRequest addOsmTagFilter(TagFilter filter) {
         osmTagFilters.add(filter);
         return this;
@@ -2,7 +2,6 @@ package de.komoot.photon.query;
 
 import org.locationtech.jts.geom.Point;
 import de.komoot.photon.searcher.TagFilter;
-import spark.QueryParamsMap;
 import spark.Request;
 
 import java.util.Arrays;
@@ -30,7 +29,11 @@ public class ReverseRequestFactory {
     }
 
     public ReverseRequest create(Request webRequest) throws BadRequestException {
-        for (String queryParam : webRequest.queryParams()) {
+        return create(new WebRequestParameters(webRequest));
+    }
+
+    public ReverseRequest create(RequestParameters webRequest) throws BadRequestException {
+        for (String queryParam : webRequest.names()) {
             if (!REQUEST_QUERY_PARAMS.contains(queryParam))
                 throw new BadRequestException(400, "Unknown query parameter '" + queryParam + "'.  Allowed parameters are: " + REQUEST_QUERY_PARAMS);
         }
@@ -40,7 +43,7 @@ public class ReverseRequestFactory {
         Point location = mandatoryLocationParamConverter.apply(webRequest);
 
         double radius = 1d;
-        String radiusParam = webRequest.queryParams("radius");
+        String radiusParam = webRequest.get("radius");
         if (radiusParam != null) {
             try {
                 radius = Double.parseDouble(radiusParam);
@@ -57,13 +60,13 @@ public class ReverseRequestFactory {
 
         boolean locationDistanceSort;
         try {
-            locationDistanceSort = Boolean.parseBoolean(webRequest.queryParamOrDefault("distance_sort", "true"));
+            locationDistanceSort = Boolean.parseBoolean(webRequest.getOrDefault("distance_sort", "true"));
         } catch (Exception nfe) {
             throw new BadRequestException(400, "Invalid parameter 'distance_sort', can only be true or false");
         }
 
         int limit = 1;
-        String limitParam = webRequest.queryParams("limit");
+        String limitParam = webRequest.get("limit");
         if (limitParam != null) {
             try {
                 limit = Integer.parseInt(limitParam);
@@ -77,26 +80,23 @@ public class ReverseRequestFactory {
             limit = Math.min(limit, maxResults);
         }
 
-        boolean enableDebug = webRequest.queryParams("debug") != null;
+        boolean enableDebug = webRequest.get("debug") != null;
 
         Set<String> layerFilter = new HashSet<>();
-        QueryParamsMap layerFiltersQueryMap = webRequest.queryMap("layer");
-        if (layerFiltersQueryMap.hasValue()) {
-            layerFilter = layerParamValidator.validate(layerFiltersQueryMap.values());
+        String[] layerFilters = webRequest.getAll("layer");
+        if (layerFilters.length > 0) {
+            layerFilter = layerParamValidator.validate(layerFilters);
         }
 
-        String queryStringFilter = webRequest.queryParams("query_string_filter");
+        String queryStringFilter = webRequest.get("query_string_filter");
         ReverseRequest request = new ReverseRequest(location, language, radius, queryStringFilter, limit, locationDistanceSort, layerFilter, enableDebug);
 
-        QueryParamsMap tagFiltersQueryMap = webRequest.queryMap("osm_tag");
-        if (tagFiltersQueryMap.hasValue()) {
-            for (String filter : tagFiltersQueryMap.values()) {
-                TagFilter tagFilter = TagFilter.buildOsmTagFilter(filter);
-                if (tagFilter == null) {
-                    throw new BadRequestException(400, String.format("Invalid parameter 'osm_tag=%s': bad syntax for tag filter.", filter));
-                }
-                request.addOsmTagFilter(TagFilter.buildOsmTagFilter(filter));
+        for (String filter : webRequest.getAll("osm_tag")) {
+            TagFilter tagFilter = TagFilter.buildOsmTagFilter(filter);
+            if (tagFilter == null) {
+                throw new BadRequestException(400, String.format("Invalid parameter 'osm_tag=%s': bad syntax for tag filter.", filter));
             }
+            request.addOsmTagFilter(TagFilter.buildOsmTagFilter(filter));
         }
 
         return request;
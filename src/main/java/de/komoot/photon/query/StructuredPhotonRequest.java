@@ -16,6 +16,29 @@ public class StructuredPhotonRequest extends PhotonRequestBase {
         super(language);
     }
 
+    private StructuredPhotonRequest(StructuredPhotonRequest other) {
+        super(other);
+        this.countryCode = other.countryCode;
+        this.state = other.state;
+        this.county = other.county;
+        this.city = other.city;
+        this.postCode = other.postCode;
+        this.district = other.district;
+        this.street = other.street;
+        this.houseNumber = other.houseNumber;
+    }
+
+    /**
+     * Create a copy of this request without street and house number.
+     * The request itself is left unchanged.
+     */
+    public StructuredPhotonRequest withoutStreet() {
+        final StructuredPhotonRequest copy = new StructuredPhotonRequest(this);
+        copy.street = null;
+        copy.houseNumber = null;
+        return copy;
+    }
+
     public boolean getDebug() {
         return false;
     }
@@ -0,0 +1,43 @@
+package de.komoot.photon.query;
+
+import spark.QueryParamsMap;
+import spark.Request;
+
+import java.util.Set;
+
+/**
+ * Parameters from the query string of a web request.
+ */
+public class WebRequestParameters implements RequestParameters {
+    private final Request webRequest;
+
+    public WebRequestParameters(Request webRequest) {
+        this.webRequest = webRequest;
+    }
+
+    @Override
+    public Set<String> names() {
+        return webRequest.queryParams();
+    }
+
+    @Override
+    public String get(String name) {
+        return webRequest.queryParams(name);
+    }
+
+    @Override
+    public String getOrDefault(String name, String defaultValue) {
+        return webRequest.queryParamOrDefault(name, defaultValue);
+    }
+
+    @Override
+    public String[] getAll(String name) {
+        final QueryParamsMap values = webRequest.queryMap(name);
+        return values.hasValue() ? values.values() : new String[0];
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return webRequest.headers(name);
+    }
+}
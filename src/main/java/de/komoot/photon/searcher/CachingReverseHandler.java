@@ -0,0 +1,250 @@
+package de.komoot.photon.searcher;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.davidmoten.geo.GeoHash;
+import com.github.davidmoten.geo.LatLong;
+import de.komoot.photon.query.ReverseRequest;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Reverse handler that keeps the places around recently requested locations in memory.
+ *
+ * Requests are grouped by geohash cells. The cell size is chosen depending
+ * on the search radius. For each cell, the places closest to the cell center
+ * are fetched from the database once and saved as candidates. Requests for
+ * a location in the cell are then answered by ranking the candidates by their
+ * distance to the requested location.
+ *
+ * The candidates only contain the places up to a certain distance from the
+ * center, when the candidate list had to be cut off. Results which might
+ * depend on places beyond that distance are requested from the database
+ * directly.
+ *
+ * Only single requests sorted by distance are cached.
+ */
+public class CachingReverseHandler implements ReverseHandler {
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+    private static final double EARTH_RADIUS = 6371e3;
+    private static final double METERS_PER_DEGREE = Math.toRadians(EARTH_RADIUS);
+    private static final int MAX_HASH_LENGTH = 8;
+    // Cells are chosen to be much smaller than the radius, so that the
+    // candidates of the cell center also cover most of any location in it.
+    private static final int RADIUS_TO_CELL_RATIO = 4;
+    private static final int CANDIDATE_FACTOR = 4;
+    private static final int MIN_CANDIDATES = 10;
+    // Rough estimate of the memory needed for a single result.
+    private static final int RESULT_WEIGHT = 2048;
+    private static final int ENTRY_WEIGHT = 256;
+
+    private final ReverseHandler delegate;
+    private final Cache<CacheKey, Candidates> cache;
+
+    /**
+     * @param delegate Handler that runs the actual search.
+     * @param maxSizeMb Maximum memory to use for the cache in megabytes.
+     * @param ttlSeconds Time in seconds after which an entry expires.
+     */
+    public CachingReverseHandler(ReverseHandler delegate, int maxSizeMb, int ttlSeconds) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024L * 1024L)
+                .weigher((CacheKey key, Candidates candidates) ->
+                        ENTRY_WEIGHT + RESULT_WEIGHT * candidates.results.size())
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    @Override
+    public List<PhotonResult> reverse(ReverseRequest request) {
+        if (request.getDebug() || !request.getLocationDistanceSort()) {
+            return delegate.reverse(request);
+        }
+
+        final double lat = request.getLocation().getY();
+        final double lon = request.getLocation().getX();
+        final String cell = GeoHash.encodeHash(lat, lon, getHashLength(request.getRadius()));
+
+        final Candidates candidates = cache.get(new CacheKey(cell, request), k -> fetchCandidates(cell, request));
+
+        final double radius = request.getRadius() * 1000;
+        final List<RankedResult> ranked = new ArrayList<>();
+        for (PhotonResult result : candidates.results) {
+            final double[] coordinates = result.getCoordinates();
+            final double distance = distance(lat, lon, coordinates[1], coordinates[0]);
+            if (distance <= radius) {
+                ranked.add(new RankedResult(result, distance));
+            }
+        }
+        ranked.sort(Comparator.comparingDouble(r -> r.distance));
+
+        final int limit = request.getLimit();
+        if (!candidates.isComplete) {
+            // Places outside the candidate list are at least 'coveredDistance' away.
+            final double needed = ranked.size() >= limit ? ranked.get(limit - 1).distance : radius;
+            if (needed > candidates.coveredDistance(lat, lon)) {
+                return delegate.reverse(request);
+            }
+        }
+
+        final List<PhotonResult> results = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < limit && i < ranked.size(); ++i) {
+            results.add(ranked.get(i).result);
+        }
+
+        return results;
+    }
+
+    /**
+     * Batches are passed on to the database uncached. They usually contain
+     * few repeated locations and profit more from being sent together.
+     */
+    @Override
+    public List<List<PhotonResult>> reverseBatch(List<ReverseRequest> photonRequests) {
+        return delegate.reverseBatch(photonRequests);
+    }
+
+    @Override
+    public String dumpQuery(ReverseRequest photonRequest) {
+        return delegate.dumpQuery(photonRequest);
+    }
+
+    /**
+     * Drop all cached results. Must be called after the database has changed.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long estimatedSize() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private Candidates fetchCandidates(String cell, ReverseRequest request) {
+        final LatLong center = GeoHash.decodeHash(cell);
+        final double halfHeight = GeoHash.heightDegrees(cell.length()) / 2;
+        final double halfWidth = GeoHash.widthDegrees(cell.length()) / 2;
+        // The corners closer to the equator are farther away from the center.
+        final double cellRadius = Math.max(
+                distance(center.getLat(), center.getLon(), center.getLat() + halfHeight, center.getLon() + halfWidth),
+                distance(center.getLat(), center.getLon(), center.getLat() - halfHeight, center.getLon() + halfWidth));
+
+        final int numCandidates = Math.max(MIN_CANDIDATES, CANDIDATE_FACTOR * request.getLimit());
+        final List<PhotonResult> results = List.copyOf(delegate.reverse(request.withArea(
+                FACTORY.createPoint(new Coordinate(center.getLon(), center.getLat())),
+                request.getRadius() + cellRadius / 1000,
+                numCandidates)));
+
+        if (results.size() < numCandidates) {
+            return new Candidates(results, center, Double.POSITIVE_INFINITY);
+        }
+
+        final double[] last = results.get(results.size() - 1).getCoordinates();
+        return new Candidates(results, center, distance(center.getLat(), center.getLon(), last[1], last[0]));
+    }
+
+    private static int getHashLength(double radiusKm) {
+        final double maxCellSize = radiusKm * 1000 / RADIUS_TO_CELL_RATIO;
+        for (int length = 1; length < MAX_HASH_LENGTH; ++length) {
+            final double cellSize = METERS_PER_DEGREE
+                    * Math.max(GeoHash.widthDegrees(length), GeoHash.heightDegrees(length));
+            if (cellSize <= maxCellSize) {
+                return length;
+            }
+        }
+
+        return MAX_HASH_LENGTH;
+    }
+
+    private static double distance(double lat1, double lon1, double lat2, double lon2) {
+        final double dLat = Math.toRadians(lat2 - lat1);
+        final double dLon = Math.toRadians(lon2 - lon1);
+        final double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                  * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private static final class Candidates {
+        private final List<PhotonResult> results;
+        private final LatLong center;
+        private final double maxCenterDistance;
+        private final boolean isComplete;
+
+        /**
+         * @param results Places sorted by distance from the center.
+         * @param maxCenterDistance Distance from the center up to which all places are included.
+         */
+        Candidates(List<PhotonResult> results, LatLong center, double maxCenterDistance) {
+            this.results = results;
+            this.center = center;
+            this.maxCenterDistance = maxCenterDistance;
+            this.isComplete = Double.isInfinite(maxCenterDistance);
+        }
+
+        /**
+         * Get the distance from the given location up to which all places are included.
+         */
+        double coveredDistance(double lat, double lon) {
+            return maxCenterDistance - distance(center.getLat(), center.getLon(), lat, lon);
+        }
+    }
+
+    private static final class RankedResult {
+        private final PhotonResult result;
+        private final double distance;
+
+        RankedResult(PhotonResult result, double distance) {
+            this.result = result;
+            this.distance = distance;
+        }
+    }
+
+    private static final class CacheKey {
+        private final String cell;
+        private final String language;
+        private final double radius;
+        private final int limit;
+        private final String queryStringFilter;
+        private final Set<String> layerFilters;
+        private final List<TagFilter> osmTagFilters;
+
+        CacheKey(String cell, ReverseRequest request) {
+            this.cell = cell;
+            language = request.getLanguage();
+            radius = request.getRadius();
+            limit = request.getLimit();
+            queryStringFilter = request.getQueryStringFilter();
+            layerFilters = Set.copyOf(request.getLayerFilters());
+            osmTagFilters = List.copyOf(request.getOsmTagFilters());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CacheKey other = (CacheKey) o;
+            return Double.compare(radius, other.radius) == 0
+                    && limit == other.limit
+                    && cell.equals(other.cell)
+                    && Objects.equals(language, other.language)
+                    && Objects.equals(queryStringFilter, other.queryStringFilter)
+                    && layerFilters.equals(other.layerFilters)
+                    && osmTagFilters.equals(other.osmTagFilters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cell, language, radius, limit, queryStringFilter, layerFilters, osmTagFilters);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package de.komoot.photon.searcher;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.komoot.photon.query.PhotonRequest;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Point;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Search handler that keeps the results of recent requests in memory.
+ *
+ * Autocomplete clients send the same queries over and over again. Results
+ * are cached under the normalized request, so that requests which differ
+ * only in whitespace or case of the query or in the exact position of the
+ * location bias share the same entry. The location bias is snapped to a
+ * grid which gets finer with higher zoom.
+ *
+ * The cache is bounded by an estimate of the memory used. Entries expire
+ * after the given time and the whole cache must be invalidated when the
+ * data in the database changes.
+ */
+public class CachingSearchHandler implements SearchHandler {
+    // Rough estimate of the memory needed for a single result.
+    private static final int RESULT_WEIGHT = 2048;
+    private static final int ENTRY_WEIGHT = 256;
+
+    private final SearchHandler delegate;
+    private final Cache<CacheKey, List<PhotonResult>> cache;
+
+    /**
+     * @param delegate Handler that runs the actual search.
+     * @param maxSizeMb Maximum memory to use for the cache in megabytes.
+     * @param ttlSeconds Time in seconds after which an entry expires.
+     */
+    public CachingSearchHandler(SearchHandler delegate, int maxSizeMb, int ttlSeconds) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024L * 1024L)
+                .weigher((CacheKey key, List<PhotonResult> results) ->
+                        ENTRY_WEIGHT + 2 * key.query.length() + RESULT_WEIGHT * results.size())
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    @Override
+    public List<PhotonResult> search(PhotonRequest photonRequest) {
+        if (photonRequest.getDebug()) {
+            return delegate.search(photonRequest);
+        }
+
+        return cache.get(new CacheKey(photonRequest), k -> List.copyOf(delegate.search(photonRequest)));
+    }
+
+    @Override
+    public List<List<PhotonResult>> searchBatch(List<PhotonRequest> photonRequests) {
+        final List<List<PhotonResult>> results = new ArrayList<>(photonRequests.size());
+        final List<CacheKey> missingKeys = new ArrayList<>();
+        final List<PhotonRequest> missingRequests = new ArrayList<>();
+        final List<Integer> missingPositions = new ArrayList<>();
+
+        for (PhotonRequest request : photonRequests) {
+            final CacheKey key = request.getDebug() ? null : new CacheKey(request);
+            final List<PhotonResult> cached = key == null ? null : cache.getIfPresent(key);
+            if (cached == null) {
+                missingKeys.add(key);
+                missingRequests.add(request);
+                missingPositions.add(results.size());
+            }
+            results.add(cached);
+        }
+
+        if (!missingRequests.isEmpty()) {
+            final List<List<PhotonResult>> found = delegate.searchBatch(missingRequests);
+            for (int i = 0; i < found.size(); ++i) {
+                if (found.get(i) instanceof FailedResults) {
+                    // Passed on as is, so that the request is run again next time.
+                    results.set(missingPositions.get(i), found.get(i));
+                    continue;
+                }
+                final List<PhotonResult> result = List.copyOf(found.get(i));
+                if (missingKeys.get(i) != null) {
+                    cache.put(missingKeys.get(i), result);
+                }
+                results.set(missingPositions.get(i), result);
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public String dumpQuery(PhotonRequest photonRequest) {
+        return delegate.dumpQuery(photonRequest);
+    }
+
+    /**
+     * Drop all cached results. Must be called after the database has changed.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long estimatedSize() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private static final class CacheKey {
+        private final String query;
+        private final String language;
+        private final int limit;
+        private final List<TagFilter> osmTagFilters;
+        private final Set<String> layerFilters;
+        private final Envelope bbox;
+        private final double scale;
+        private final int zoom;
+        private final long biasX;
+        private final long biasY;
+        private final boolean hasBias;
+
+        CacheKey(PhotonRequest request) {
+            query = normalizeQuery(request.getQuery());
+            language = request.getLanguage();
+            limit = request.getLimit();
+            osmTagFilters = List.copyOf(request.getOsmTagFilters());
+            layerFilters = Set.copyOf(request.getLayerFilters());
+            bbox = request.getBbox();
+
+            final Point bias = request.getLocationForBias();
+            hasBias = bias != null;
+            if (hasBias) {
+                scale = request.getScaleForBias();
+                zoom = request.getZoomForBias();
+                // Grid cells are about a sixteenth of a tile at the given zoom.
+                final double cellSize = 360.0 / (1L << (zoom + 4));
+                biasX = (long) Math.floor(bias.getX() / cellSize);
+                biasY = (long) Math.floor(bias.getY() / cellSize);
+            } else {
+                // Scale and zoom have no influence without a location bias.
+                scale = 0;
+                zoom = 0;
+                biasX = 0;
+                biasY = 0;
+            }
+        }
+
+        private static String normalizeQuery(String query) {
+            return query.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CacheKey other = (CacheKey) o;
+            return limit == other.limit
+                    && Double.compare(scale, other.scale) == 0
+                    && zoom == other.zoom
+                    && biasX == other.biasX
+                    && biasY == other.biasY
+                    && hasBias == other.hasBias
+                    && query.equals(other.query)
+                    && Objects.equals(language, other.language)
+                    && osmTagFilters.equals(other.osmTagFilters)
+                    && layerFilters.equals(other.layerFilters)
+                    && Objects.equals(bbox, other.bbox);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, language, limit, osmTagFilters, layerFilters, bbox,
+                    scale, zoom, biasX, biasY, hasBias);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package de.komoot.photon.searcher;
+
+import java.util.AbstractList;
+
+/**
+ * Result list for a request of a batch which could not be run.
+ *
+ * Batch handlers return it in place of the results, so that the other
+ * requests of the batch can still be answered. It behaves like an empty
+ * list and carries the reason of the failure.
+ */
+public final class FailedResults extends AbstractList<PhotonResult> {
+    private final String message;
+
+    public FailedResults(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public PhotonResult get(int index) {
+        throw new IndexOutOfBoundsException("Index " + index + " out of bounds for failed results");
+    }
+
+    @Override
+    public int size() {
+        return 0;
+    }
+}
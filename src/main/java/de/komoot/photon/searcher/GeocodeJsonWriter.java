@@ -0,0 +1,126 @@
+package de.komoot.photon.searcher;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.komoot.photon.Constants;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes results as a Photon GeocodeJson response directly to an output stream.
+ *
+ * Produces the same output as {@link GeocodeJsonFormatter} without debug
+ * information. The JSON is written while walking through the results,
+ * no intermediate JSON objects or strings are created. The generators reuse
+ * their buffers between requests.
+ */
+public class GeocodeJsonWriter {
+    private static final String[] KEYS_LANG_UNSPEC = {Constants.OSM_TYPE, Constants.OSM_ID, Constants.OSM_KEY, Constants.OSM_VALUE, Constants.OBJECT_TYPE, Constants.POSTCODE, Constants.HOUSENUMBER, Constants.COUNTRYCODE};
+    private static final String[] KEYS_LANG_SPEC = {Constants.NAME, Constants.COUNTRY, Constants.CITY, Constants.DISTRICT, Constants.LOCALITY, Constants.STREET, Constants.STATE, Constants.COUNTY};
+
+    private static final JsonFactory FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final String language;
+
+    public GeocodeJsonWriter(String language) {
+        this.language = language;
+    }
+
+    /**
+     * Write the results as UTF-8 encoded GeocodeJson.
+     *
+     * The output stream is flushed but not closed.
+     */
+    public void write(List<PhotonResult> results, OutputStream out) throws IOException {
+        try (JsonGenerator gen = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            gen.writeStringField("type", "FeatureCollection");
+            gen.writeArrayFieldStart("features");
+            for (PhotonResult result : results) {
+                writeFeature(gen, result);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+
+    private void writeFeature(JsonGenerator gen, PhotonResult result) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", "Feature");
+
+        gen.writeObjectFieldStart("properties");
+        for (String key : KEYS_LANG_UNSPEC) {
+            writeField(gen, key, result.get(key));
+        }
+
+        for (String key : KEYS_LANG_SPEC) {
+            writeField(gen, key, result.getLocalised(key, language));
+        }
+
+        final double[] extent = result.getExtent();
+        if (extent != null) {
+            gen.writeFieldName("extent");
+            gen.writeArray(extent, 0, extent.length);
+        }
+
+        writeField(gen, "extra", result.getMap("extra"));
+        gen.writeEndObject();
+
+        final double[] coordinates = result.getCoordinates();
+        gen.writeObjectFieldStart("geometry");
+        gen.writeStringField("type", "Point");
+        gen.writeFieldName("coordinates");
+        gen.writeArray(coordinates, 0, coordinates.length);
+        gen.writeEndObject();
+
+        gen.writeEndObject();
+    }
+
+    private static void writeField(JsonGenerator gen, String key, Object value) throws IOException {
+        if (value != null) {
+            gen.writeFieldName(key);
+            writeValue(gen, value);
+        }
+    }
+
+    private static void writeValue(JsonGenerator gen, Object value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else if (value instanceof String) {
+            gen.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            gen.writeNumber(((Number) value).longValue());
+        } else if (value instanceof BigInteger) {
+            gen.writeNumber((BigInteger) value);
+        } else if (value instanceof BigDecimal) {
+            gen.writeNumber((BigDecimal) value);
+        } else if (value instanceof Number) {
+            gen.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            gen.writeBoolean((Boolean) value);
+        } else if (value instanceof Map) {
+            gen.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                gen.writeFieldName(String.valueOf(entry.getKey()));
+                writeValue(gen, entry.getValue());
+            }
+            gen.writeEndObject();
+        } else if (value instanceof Collection) {
+            gen.writeStartArray();
+            for (Object item : (Collection<?>) value) {
+                writeValue(gen, item);
+            }
+            gen.writeEndArray();
+        } else {
+            gen.writeString(value.toString());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package de.komoot.photon.searcher;
 
 import de.komoot.photon.query.ReverseRequest;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -11,5 +12,21 @@ public interface ReverseHandler {
 
     List<PhotonResult> reverse(ReverseRequest photonRequest);
 
+    /**
+     * Run a list of reverse requests.
+     *
+     * Handlers may send the requests to the database together.
+     *
+     * @return The results for each request in the same order as the requests.
+     *         Requests which could not be run get a {@link FailedResults}.
+     */
+    default List<List<PhotonResult>> reverseBatch(List<ReverseRequest> photonRequests) {
+        final List<List<PhotonResult>> results = new ArrayList<>(photonRequests.size());
+        for (ReverseRequest request : photonRequests) {
+            results.add(reverse(request));
+        }
+        return results;
+    }
+
     String dumpQuery(ReverseRequest photonRequest);
 }
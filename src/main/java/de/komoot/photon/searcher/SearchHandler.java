@@ -2,6 +2,7 @@ package de.komoot.photon.searcher;
 
 import de.komoot.photon.query.PhotonRequest;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -11,5 +12,21 @@ public interface SearchHandler {
 
     List<PhotonResult> search(PhotonRequest photonRequest);
 
+    /**
+     * Run a list of search requests.
+     *
+     * Handlers may send the requests to the database together.
+     *
+     * @return The results for each request in the same order as the requests.
+     *         Requests which could not be run get a {@link FailedResults}.
+     */
+    default List<List<PhotonResult>> searchBatch(List<PhotonRequest> photonRequests) {
+        final List<List<PhotonResult>> results = new ArrayList<>(photonRequests.size());
+        for (PhotonRequest request : photonRequests) {
+            results.add(search(request));
+        }
+        return results;
+    }
+
     String dumpQuery(PhotonRequest photonRequest);
 }
@@ -0,0 +1,74 @@
+package de.komoot.photon.utils;
+
+import de.komoot.photon.UsageException;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pool for the webserver which runs every task on a new virtual thread.
+ *
+ * Requests waiting for the database then no longer hold on to a platform
+ * thread and the number of requests in progress is only bounded by memory.
+ * Virtual threads are available from Java 21 on. The code is still compiled
+ * for older versions, so the executor is looked up at runtime.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+    private final ExecutorService executor;
+    private final AtomicInteger running = new AtomicInteger();
+
+    public VirtualThreadPool() {
+        try {
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UsageException("Virtual threads need Java 21 or newer.");
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        running.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            running.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        executor.shutdownNow();
+        super.doStop();
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int getThreads() {
+        return running.get();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
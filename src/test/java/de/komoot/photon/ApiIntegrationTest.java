@@ -10,9 +10,12 @@ import org.junit.jupiter.params.provider.CsvSource;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -146,4 +149,68 @@ class ApiIntegrationTest extends ESBaseTester {
         assertEquals("Ok", json.getString("status"));
         assertEquals(prop.getImportDate().toInstant().toString(), json.getString("import_date"));
     }
+
+    private List<String> postLines(String path, String body) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port() + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(200, connection.getResponseCode());
+        return new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))
+                .lines().collect(Collectors.toList());
+    }
+
+    @Test
+    void testApiBatch() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1"});
+        awaitInitialization();
+        List<String> lines = postLines("/api/batch",
+                "{\"q\": \"berlin\", \"limit\": 1}\n"
+                + "{\"limit\": 1}\n"
+                + "\n"
+                + "{\"q\": \"berlin\", \"limit\": 1, \"lat\": 52.54714, \"lon\": 13.39026, \"zoom\": 16}\n"
+                + "{\"q\": \"berlin\", \"layer\": [\"house\"]}\n");
+
+        assertEquals(4, lines.size());
+        assertEquals("city", new JSONObject(lines.get(0)).getJSONArray("features").getJSONObject(0)
+                .getJSONObject("properties").getString("osm_value"));
+        assertTrue(new JSONObject(lines.get(1)).getString("message").contains("missing search term 'q'"));
+        assertEquals("town", new JSONObject(lines.get(2)).getJSONArray("features").getJSONObject(0)
+                .getJSONObject("properties").getString("osm_value"));
+        assertTrue(new JSONObject(lines.get(3)).getJSONArray("features").isEmpty());
+    }
+
+    @Test
+    void testApiReverseBatch() throws Exception {
+        App.main(new String[]{"-cluster", TEST_CLUSTER_NAME, "-listen-port", Integer.toString(LISTEN_PORT), "-transport-addresses", "127.0.0.1"});
+        awaitInitialization();
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 450; ++i) {
+            if (i % 3 == 0) {
+                body.append("{\"lon\": 13.38886, \"lat\": 52.51704}\n");
+            } else if (i % 3 == 1) {
+                body.append("{\"lon\": 13.390261, \"lat\": 52.547141, \"limit\": 2, \"radius\": 10}\n");
+            } else {
+                body.append("{\"lon\": 13.39, \"lat\": 95}\n");
+            }
+        }
+
+        List<String> lines = postLines("/reverse/batch", body.toString());
+
+        assertEquals(450, lines.size());
+        for (int i = 0; i < lines.size(); ++i) {
+            JSONObject json = new JSONObject(lines.get(i));
+            if (i % 3 == 2) {
+                assertTrue(json.has("message"));
+            } else {
+                JSONArray features = json.getJSONArray("features");
+                assertEquals(i % 3 == 0 ? 1 : 2, features.length());
+                assertEquals(i % 3 == 0 ? "city" : "town",
+                        features.getJSONObject(0).getJSONObject("properties").getString("osm_value"));
+            }
+        }
+    }
 }
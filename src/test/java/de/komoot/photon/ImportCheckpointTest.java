@@ -0,0 +1,52 @@
+package de.komoot.photon;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportCheckpointTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSaveAndLoad() throws IOException {
+        final Path file = tempDir.resolve("checkpoint.json");
+        final var checkpoint = new ImportCheckpoint(file, "photon_1234", true);
+        checkpoint.save();
+
+        checkpoint.markCompleted("de");
+        checkpoint.markCompleted("");
+
+        final var loaded = ImportCheckpoint.load(file);
+
+        assertEquals("photon_1234", loaded.getIndexName());
+        assertTrue(loaded.isVersionedIndex());
+        assertTrue(loaded.isCompleted("de"));
+        assertTrue(loaded.isCompleted(""));
+        assertFalse(loaded.isCompleted("fr"));
+    }
+
+    @Test
+    void testDelete() throws IOException {
+        final Path file = tempDir.resolve("checkpoint.json");
+        final var checkpoint = new ImportCheckpoint(file, "photon", false);
+        checkpoint.save();
+
+        assertTrue(Files.exists(file));
+        checkpoint.delete();
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void testLoadInvalidFile() throws IOException {
+        final Path file = tempDir.resolve("checkpoint.json");
+        Files.writeString(file, "{\"foo\": 1}");
+
+        assertThrows(IOException.class, () -> ImportCheckpoint.load(file));
+    }
+}
@@ -0,0 +1,153 @@
+package de.komoot.photon;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportStatisticsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPercentileOfEmptyHistogram() {
+        final var histogram = new ImportStatistics.LatencyHistogram();
+
+        assertEquals(0, histogram.percentile(0.5));
+        assertEquals(0, histogram.toJson().getLong("mean"));
+    }
+
+    @Test
+    void testPercentileBucketBoundaries() {
+        // Buckets are [0, 1), [1, 2), [2, 4), [4, 8), ... and report their upper bound.
+        assertEquals(1, percentileOf(0));
+        assertEquals(2, percentileOf(1));
+        assertEquals(4, percentileOf(2));
+        assertEquals(4, percentileOf(3));
+        assertEquals(8, percentileOf(4));
+        assertEquals(1024, percentileOf(1023));
+        assertEquals(2048, percentileOf(1024));
+        assertEquals(1L << 31, percentileOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testPercentileSelectsBucket() {
+        final var histogram = new ImportStatistics.LatencyHistogram();
+        for (int i = 0; i < 90; ++i) {
+            histogram.add(1);
+        }
+        for (int i = 0; i < 10; ++i) {
+            histogram.add(1000);
+        }
+
+        assertEquals(2, histogram.percentile(0.5));
+        assertEquals(2, histogram.percentile(0.9));
+        assertEquals(1024, histogram.percentile(0.91));
+        assertEquals(1024, histogram.percentile(0.99));
+
+        final JSONObject json = histogram.toJson();
+        assertEquals(100, json.getLong("count"));
+        assertEquals(100, json.getLong("mean"));
+    }
+
+    @Test
+    void testNoEtaWhenTotalUnknown() {
+        final var statistics = new ImportStatistics();
+        final var country = statistics.startCountry("de", -1);
+        statistics.countRow(ImportStatistics.RowType.PLACE, country);
+
+        final JSONObject json = countryJson(statistics, "de");
+        assertEquals(1, json.getLong("rows_fetched"));
+        assertFalse(json.has("rows_estimated"));
+        assertFalse(json.has("eta_seconds"));
+    }
+
+    @Test
+    void testEtaWhenTotalIsZero() {
+        final var statistics = new ImportStatistics();
+        final var country = statistics.startCountry("", 0);
+
+        // Nothing read yet, no rate to compute an ETA from.
+        assertFalse(countryJson(statistics, "none").has("eta_seconds"));
+
+        statistics.countRow(ImportStatistics.RowType.POI, country);
+
+        final JSONObject json = countryJson(statistics, "none");
+        assertEquals(0, json.getLong("rows_estimated"));
+        assertEquals(0, json.getLong("eta_seconds"));
+    }
+
+    @Test
+    void testEtaForRunningAndFinishedCountry() {
+        final var statistics = new ImportStatistics();
+        final var country = statistics.startCountry("fr", 1000);
+        statistics.countRow(ImportStatistics.RowType.INTERPOLATION, country);
+
+        JSONObject json = countryJson(statistics, "fr");
+        assertEquals("running", json.getString("state"));
+        assertTrue(json.getLong("eta_seconds") >= 0);
+
+        country.finish();
+
+        json = countryJson(statistics, "fr");
+        assertEquals("done", json.getString("state"));
+        assertFalse(json.has("eta_seconds"));
+    }
+
+    @Test
+    void testCounters() {
+        final var statistics = new ImportStatistics();
+        final var country = statistics.startCountry("de", 10);
+        statistics.countRow(ImportStatistics.RowType.PLACE, country);
+        statistics.countRow(ImportStatistics.RowType.POI, country);
+        statistics.countAddressLookup(true);
+        statistics.countAddressLookup(true);
+        statistics.countAddressLookup(true);
+        statistics.countAddressLookup(false);
+        statistics.countQueuedDocument();
+        statistics.addBulkRequest(5, 1, 20);
+        statistics.setQueueDepthSupplier(() -> 7);
+
+        final JSONObject json = statistics.toJson();
+        assertEquals(1, json.getJSONObject("rows").getLong("placex"));
+        assertEquals(1, json.getJSONObject("rows").getLong("placex_rank30"));
+        assertEquals(0, json.getJSONObject("rows").getLong("osmline"));
+        assertEquals(0.75, json.getJSONObject("address_cache").getDouble("hit_rate"));
+        assertEquals(1, json.getJSONObject("documents").getLong("queued"));
+        assertTrue(json.getJSONObject("documents").getLong("per_second") >= 0);
+        assertEquals(7, json.getInt("queue_depth"));
+        assertEquals(5, json.getJSONObject("bulk").getLong("documents"));
+        assertEquals(1, json.getJSONObject("bulk").getLong("rejected"));
+        assertEquals(32, json.getJSONObject("bulk").getJSONObject("latency_ms").getLong("p50"));
+    }
+
+    @Test
+    void testProgressFileIsWrittenOnStop() throws IOException {
+        final Path file = tempDir.resolve("progress.json");
+        final var statistics = new ImportStatistics();
+        statistics.startReporting(file, 3600);
+        statistics.countQueuedDocument();
+
+        statistics.stopReporting();
+
+        final JSONObject json = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+        assertEquals(1, json.getJSONObject("documents").getLong("queued"));
+        assertFalse(Files.exists(tempDir.resolve("progress.json.tmp")));
+    }
+
+    private static long percentileOf(long value) {
+        final var histogram = new ImportStatistics.LatencyHistogram();
+        histogram.add(value);
+        return histogram.percentile(0.5);
+    }
+
+    private static JSONObject countryJson(ImportStatistics statistics, String key) {
+        return statistics.toJson().getJSONObject("countries").getJSONObject(key);
+    }
+}
@@ -0,0 +1,51 @@
+package de.komoot.photon;
+
+import org.junit.jupiter.api.Test;
+import spark.HaltException;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitedRouteTest {
+
+    @Test
+    void testRejectsRequestsOverLimit() throws Exception {
+        final Semaphore permits = new Semaphore(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+
+        final LimitedRoute slowRoute = new LimitedRoute((request, response) -> {
+            started.countDown();
+            finish.await();
+            return "slow";
+        }, permits);
+        final LimitedRoute fastRoute = new LimitedRoute((request, response) -> "fast", permits);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Object> slow = executor.submit(() -> slowRoute.handle(null, null));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            final HaltException e = assertThrows(HaltException.class, () -> fastRoute.handle(null, null));
+            assertEquals(503, e.statusCode());
+
+            finish.countDown();
+            assertEquals("slow", slow.get(10, TimeUnit.SECONDS));
+            assertEquals("fast", fastRoute.handle(null, null));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testReleasesPermitOnError() {
+        final Semaphore permits = new Semaphore(1);
+        final LimitedRoute route = new LimitedRoute((request, response) -> {
+            throw new IllegalStateException("database gone");
+        }, permits);
+
+        assertThrows(IllegalStateException.class, () -> route.handle(null, null));
+        assertEquals(1, permits.availablePermits());
+    }
+}
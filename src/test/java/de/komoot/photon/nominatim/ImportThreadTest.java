@@ -0,0 +1,70 @@
+package de.komoot.photon.nominatim;
+
+import de.komoot.photon.PhotonDoc;
+import de.komoot.photon.nominatim.testdb.CollectingImporter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportThreadTest {
+    private CollectingImporter importer;
+    private List<String> completed;
+
+    @BeforeEach
+    void setup() {
+        importer = new CollectingImporter();
+        completed = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @Test
+    void testCountryCheckpoints() {
+        ImportThread importThread = new ImportThread(importer);
+        try {
+            importThread.startCountry("de");
+            importThread.addDocument(makeResult(1));
+            importThread.addCheckpoint("de", () -> completed.add("de"));
+            importThread.startCountry("fr");
+            importThread.addDocument(makeResult(2));
+            importThread.addCheckpoint("fr", () -> completed.add("fr"));
+        } finally {
+            importThread.finish();
+        }
+
+        assertEquals(List.of("de", "fr"), completed);
+        assertEquals(2, importer.size());
+    }
+
+    @Test
+    void testFailureMarksAllInterleavedCountries() {
+        importer.failNextFlushes(1);
+
+        ImportThread importThread = new ImportThread(importer);
+        try {
+            importThread.startCountry("de");
+            importThread.startCountry("fr");
+            importThread.addDocument(makeResult(1));
+            importThread.addDocument(makeResult(2));
+            // The failed bulk may have contained documents of both countries.
+            importThread.addCheckpoint("de", () -> completed.add("de"));
+            importThread.addDocument(makeResult(3));
+            importThread.addCheckpoint("fr", () -> completed.add("fr"));
+            // Countries started after the failure are not affected.
+            importThread.startCountry("it");
+            importThread.addDocument(makeResult(4));
+            importThread.addCheckpoint("it", () -> completed.add("it"));
+        } finally {
+            importThread.finish();
+        }
+
+        assertEquals(List.of("it"), completed);
+    }
+
+    private static NominatimResult makeResult(long placeId) {
+        return NominatimResult.fromAddress(new PhotonDoc(placeId, "N", placeId, "place", "city"), null);
+    }
+}
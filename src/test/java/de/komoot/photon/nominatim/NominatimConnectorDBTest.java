@@ -13,7 +13,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
@@ -87,6 +89,28 @@ class NominatimConnectorDBTest {
         importer.assertContains(place);
     }
 
+    @Test
+    void testCheckpointAfterCountry() throws ParseException {
+        PlacexTestRow place = new PlacexTestRow("amenity", "cafe").name("SpotHU").country("hu").add(jdbc);
+        new PlacexTestRow("amenity", "cafe").name("SpotDE").country("de").add(jdbc);
+
+        final List<Integer> docsAtCheckpoint = new ArrayList<>();
+        ImportThread importThread = new ImportThread(importer);
+        try {
+            importThread.startCountry("hu");
+            connector.readCountry("hu", importThread);
+            importThread.addCheckpoint("hu", () -> docsAtCheckpoint.add(importer.size()));
+            importThread.startCountry("de");
+            connector.readCountry("de", importThread);
+        } finally {
+            importThread.finish();
+        }
+
+        assertEquals(List.of(1), docsAtCheckpoint);
+        assertEquals(2, importer.size());
+        importer.assertContains(place);
+    }
+
     @Test
     void testImportance() {
         PlacexTestRow place1 = new PlacexTestRow("amenity", "cafe").name("Spot").rankSearch(10).add(jdbc);
@@ -222,6 +246,38 @@ class NominatimConnectorDBTest {
         }
     }
 
+    @Test
+    void testImportWithAssemblyThreads() throws ParseException {
+        PlacexTestRow parent = PlacexTestRow.make_street("Burg").add(jdbc);
+
+        parent.addAddresslines(jdbc,
+                new PlacexTestRow("place", "city").name("Grand Junction").ranks(16).add(jdbc));
+
+        PlacexTestRow place = new PlacexTestRow("place", "house").name("House").parent(parent).add(jdbc);
+
+        OsmlineTestRow osmline =
+                new OsmlineTestRow().number(10, 20, 2).parent(parent).geom("LINESTRING(0 0, 0 1)").add(jdbc);
+
+        connector.setAssemblyThreads(2);
+        try {
+            readEntireDatabase();
+        } finally {
+            connector.close();
+        }
+
+        assertEquals(9, importer.size());
+
+        PhotonDoc doc = importer.get(place);
+        AssertUtil.assertAddressName("Burg", doc, AddressType.STREET);
+        AssertUtil.assertAddressName("Grand Junction", doc, AddressType.CITY);
+
+        PlacexTestRow expect = new PlacexTestRow("place", "house_number").id(osmline.getPlaceId()).parent(parent).osm("W", 23);
+
+        for (int i = 0; i < 6; ++i) {
+            importer.assertContains(expect.centroid(0, i * 0.2), String.valueOf(10 + i * 2));
+        }
+    }
+
     /**
      * When the address contains multiple address parts that map to 'city', then only the one with the
      * highest address rank is used. The others are moved to context.
@@ -154,4 +154,27 @@ class NominatimResultTest {
         assertDocWithHousenumbers(Arrays.asList("101", "102", "103", "104", "105"), res.getDocsWithHousenumber());
     }
 
-}
\ No newline at end of file
+    @Test
+    void testDuplicateHousenumbersInAddress() {
+        Map<String, String> address = housenumberAddress("34;12");
+        address.put("streetnumber", "12");
+        NominatimResult res = NominatimResult.fromAddress(simpleDoc, address);
+
+        assertDocWithHousenumbers(Arrays.asList("12", "34"), res.getDocsWithHousenumber());
+    }
+
+    @Test
+    void testAddHouseNumbersFromNewStyleInterpolation() throws ParseException {
+        WKTReader reader = new WKTReader();
+        NominatimResult res = NominatimResult.fromInterpolation(simpleDoc, 10, 14, 2,
+                reader.read("LINESTRING(0.0 0.0 ,0.0 0.1)"));
+
+        List<PhotonDoc> docs = res.getDocsWithHousenumber();
+        assertDocWithHousenumbers(Arrays.asList("10", "12", "14"), docs);
+
+        assertEquals("12", docs.get(1).getHouseNumber());
+        assertEquals(0.0, docs.get(1).getCentroid().getX(), 0.000001);
+        assertEquals(0.05, docs.get(1).getCentroid().getY(), 0.000001);
+        assertEquals(0.1, docs.get(2).getCentroid().getY(), 0.000001);
+    }
+}
@@ -0,0 +1,112 @@
+package de.komoot.photon.nominatim;
+
+import de.komoot.photon.ReflectionTestUtil;
+import de.komoot.photon.nominatim.testdb.CollectingUpdater;
+import de.komoot.photon.nominatim.testdb.H2DataAdapter;
+import de.komoot.photon.nominatim.testdb.PhotonUpdateRow;
+import de.komoot.photon.nominatim.testdb.PlacexTestRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NominatimUpdateSchedulerTest {
+    private EmbeddedDatabase db;
+    private NominatimUpdater connector;
+    private CollectingUpdater updater;
+    private JdbcTemplate jdbc;
+    private NominatimUpdateScheduler scheduler;
+
+    @BeforeEach
+    void setup() {
+        db = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("/test-schema.sql")
+                .build();
+
+        connector = new NominatimUpdater(null, 0, null, null, null, new H2DataAdapter());
+        updater = new CollectingUpdater();
+        connector.setUpdater(updater);
+
+        jdbc = new JdbcTemplate(db);
+        ReflectionTestUtil.setFieldValue(connector, NominatimConnector.class, "template", jdbc);
+        ReflectionTestUtil.setFieldValue(connector, NominatimConnector.class, "txTemplate",
+                new TransactionTemplate(new DataSourceTransactionManager(db)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+        db.shutdown();
+    }
+
+    @Test
+    void testRequestsAreCoalesced() throws InterruptedException {
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch secondRun = new CountDownLatch(1);
+        scheduler = new NominatimUpdateScheduler(connector, () -> {
+            if (runs.incrementAndGet() == 1) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                secondRun.countDown();
+            }
+        }, 100, 60000);
+
+        scheduler.requestUpdate();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Requests during a running update result in exactly one more update.
+        for (int i = 0; i < 5; ++i) {
+            scheduler.requestUpdate();
+        }
+        assertTrue(scheduler.isUpdatePending());
+
+        release.countDown();
+        assertTrue(secondRun.await(5, TimeUnit.SECONDS));
+
+        // The pending flag is reset before the second update runs and nothing
+        // requested another one since.
+        assertEquals(2, runs.get());
+        assertFalse(scheduler.isUpdatePending());
+    }
+
+    @Test
+    void testPollForUpdatesWithoutNotifications() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        scheduler = new NominatimUpdateScheduler(connector, () -> {
+            connector.update();
+            done.countDown();
+        }, 10, 50);
+
+        PlacexTestRow place = new PlacexTestRow("place", "city").name("Town").add(jdbc);
+        (new PhotonUpdateRow("placex", place.getPlaceId(), "UPDATE")).add(jdbc);
+        assertTrue(connector.hasPendingUpdates());
+
+        scheduler.start();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        updater.assertHasCreated(place.getPlaceId());
+        assertFalse(connector.hasPendingUpdates());
+    }
+}
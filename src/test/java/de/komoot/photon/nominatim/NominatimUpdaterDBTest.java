@@ -1,6 +1,9 @@
 package de.komoot.photon.nominatim;
 
+import de.komoot.photon.AssertUtil;
+import de.komoot.photon.PhotonDoc;
 import de.komoot.photon.ReflectionTestUtil;
+import de.komoot.photon.nominatim.model.AddressType;
 import de.komoot.photon.nominatim.testdb.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +14,10 @@ import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class NominatimUpdaterDBTest {
@@ -292,4 +299,185 @@ class NominatimUpdaterDBTest {
         updater.assertHasCreated(place1.getPlaceId());
         updater.assertHasDeleted(place2.getPlaceId());
     }
+
+    @Test
+    void testGetByPlaceIdsAddresses() {
+        PlacexTestRow city = new PlacexTestRow("place", "city").name("Grand Junction").ranks(16).add(jdbc);
+        PlacexTestRow suburb = new PlacexTestRow("place", "suburb").name("Crampton").ranks(20).add(jdbc);
+        suburb.addAddresslines(jdbc, city);
+        PlacexTestRow street = PlacexTestRow.make_street("Burg").add(jdbc);
+        street.addAddresslines(jdbc, suburb, city);
+
+        PlacexTestRow house1 = new PlacexTestRow("place", "house").name("House 1").parent(street).add(jdbc);
+        PlacexTestRow house2 = new PlacexTestRow("place", "house").name("House 2").parent(street).add(jdbc);
+
+        Map<Long, List<PhotonDoc>> docs = connector.getByPlaceIds(
+                List.of(suburb.getPlaceId(), house1.getPlaceId(), house2.getPlaceId(), 9999L));
+
+        assertEquals(3, docs.size());
+        assertFalse(docs.containsKey(9999L));
+
+        PhotonDoc doc = docs.get(suburb.getPlaceId()).get(0);
+        AssertUtil.assertAddressName("Grand Junction", doc, AddressType.CITY);
+        AssertUtil.assertNoAddress(doc, AddressType.STREET);
+
+        for (PlacexTestRow house : List.of(house1, house2)) {
+            doc = docs.get(house.getPlaceId()).get(0);
+            AssertUtil.assertAddressName("Burg", doc, AddressType.STREET);
+            AssertUtil.assertAddressName("Crampton", doc, AddressType.DISTRICT);
+            AssertUtil.assertAddressName("Grand Junction", doc, AddressType.CITY);
+        }
+    }
+
+    @Test
+    void testUpdateManyPlaces() {
+        for (int i = 0; i < 1500; ++i) {
+            PlacexTestRow place = new PlacexTestRow("place", "hamlet").name("Place " + i).rankAddress(20).add(jdbc);
+            (new PhotonUpdateRow("placex", place.getPlaceId(), "UPDATE")).add(jdbc);
+        }
+
+        connector.update();
+        updater.assertFinishCalled();
+
+        assertEquals(0, updater.numDeleted());
+        assertEquals(1500, updater.numCreated());
+    }
+
+    @Test
+    void testOnlyLastChunkIsFlushedAsFinal() {
+        for (int i = 0; i < 1500; ++i) {
+            PlacexTestRow place = new PlacexTestRow("place", "hamlet").name("Place " + i).rankAddress(20).add(jdbc);
+            (new PhotonUpdateRow("placex", place.getPlaceId(), "UPDATE")).add(jdbc);
+        }
+        PlacexTestRow street = PlacexTestRow.make_street("Burg").add(jdbc);
+        OsmlineTestRow osmline =
+                new OsmlineTestRow().number(6, 8, 1).parent(street).geom("LINESTRING(0 0, 0 1)").add(jdbc);
+        (new PhotonUpdateRow("location_property_osmline", osmline.getPlaceId(), "UPDATE")).add(jdbc);
+
+        assertTrue(connector.update());
+
+        // Two chunks of places are flushed normally, the interpolation comes last.
+        assertEquals(2, updater.numFlushes());
+        assertEquals(1, updater.numFinalFlushes());
+    }
+
+    @Test
+    void testUpdateLogRemovedAfterUpdate() {
+        PlacexTestRow place = new PlacexTestRow("place", "city").name("Town").add(jdbc);
+        (new PhotonUpdateRow("placex", place.getPlaceId(), "UPDATE")).add(jdbc);
+        (new PhotonUpdateRow("placex", 47836L, "DELETE")).add(jdbc);
+
+        assertTrue(connector.update());
+
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM photon_updates", Integer.class));
+    }
+
+    @Test
+    void testUpdateLogKeepsEntriesNotRead() {
+        (new PhotonUpdateRow("placex", 47836L, "DELETE")).add(jdbc);
+        (new PhotonUpdateRow("placex", 47840L, "DELETE")).add(jdbc);
+
+        connector.setUpdater(new CollectingUpdater() {
+            private boolean added = false;
+
+            @Override
+            public boolean flush() {
+                if (!added) {
+                    // An entry that got committed late with an older timestamp.
+                    jdbc.update("INSERT INTO photon_updates (rel, place_id, operation, indexed_date)"
+                            + " VALUES ('placex', 47838, 'UPDATE', ?)", new Date(0));
+                    added = true;
+                }
+                return super.flush();
+            }
+        });
+        connector.update();
+
+        assertEquals(List.of(47838L), jdbc.queryForList("SELECT place_id FROM photon_updates", Long.class));
+    }
+
+    @Test
+    void testPrepareUpdateLogAddsIndex() {
+        connector.prepareUpdateLog();
+        // Must be safe to run again on every start.
+        connector.prepareUpdateLog();
+
+        assertEquals(1, jdbc.queryForObject("SELECT count(*) FROM INFORMATION_SCHEMA.INDEXES"
+                + " WHERE INDEX_NAME = 'PHOTON_UPDATES_REL_PLACE_ID_IDX'", Integer.class));
+    }
+
+    @Test
+    void testUpdateLogKeptOnFailure() {
+        PlacexTestRow place = new PlacexTestRow("place", "city").name("Town").add(jdbc);
+        (new PhotonUpdateRow("placex", place.getPlaceId(), "UPDATE")).add(jdbc);
+        (new PhotonUpdateRow("placex", place.getPlaceId(), "UPDATE")).add(jdbc);
+
+        updater.setFailFlush(true);
+        assertFalse(connector.update());
+
+        assertEquals(1, updater.numCreated());
+        assertEquals(2, jdbc.queryForObject("SELECT count(*) FROM photon_updates", Integer.class));
+    }
+
+    @Test
+    void testParallelUpdate() {
+        CollectingUpdater updater2 = new CollectingUpdater();
+        connector.setUpdaters(List.of(updater, updater2));
+
+        for (int i = 0; i < 100; ++i) {
+            PlacexTestRow place = new PlacexTestRow("place", "hamlet").name("Place " + i).rankAddress(20).add(jdbc);
+            (new PhotonUpdateRow("placex", place.getPlaceId(), "UPDATE")).add(jdbc);
+        }
+        final long deletedId = 47836;
+        (new PhotonUpdateRow("placex", deletedId, "DELETE")).add(jdbc);
+
+        connector.update();
+        updater.assertFinishCalled();
+        updater2.assertFinishCalled();
+
+        assertEquals(100, updater.numCreated() + updater2.numCreated());
+        assertTrue(updater.numCreated() > 0);
+        assertTrue(updater2.numCreated() > 0);
+        assertEquals(1, updater.numDeleted() + updater2.numDeleted());
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM photon_updates", Integer.class));
+    }
+
+    @Test
+    void testChangedParentIsReloaded() {
+        PlacexTestRow street = PlacexTestRow.make_street("Burg").add(jdbc);
+        PlacexTestRow house1 = new PlacexTestRow("place", "house").name("House 1").parent(street).add(jdbc);
+        PlacexTestRow house2 = new PlacexTestRow("place", "house").name("House 2").parent(street).add(jdbc);
+
+        (new PhotonUpdateRow("placex", house1.getPlaceId(), "UPDATE")).add(jdbc);
+        connector.update();
+
+        jdbc.update("UPDATE placex SET name = '{\"name\": \"Schloss\"}' FORMAT JSON WHERE place_id = ?", street.getPlaceId());
+        (new PhotonUpdateRow("placex", street.getPlaceId(), "UPDATE")).add(jdbc);
+        (new PhotonUpdateRow("placex", house2.getPlaceId(), "UPDATE")).add(jdbc);
+        connector.update();
+
+        PhotonDoc doc = connector.getByPlaceId(house2.getPlaceId()).get(0);
+        AssertUtil.assertAddressName("Schloss", doc, AddressType.STREET);
+    }
+
+    @Test
+    void testChangedParentInLaterChunkIsReloaded() {
+        PlacexTestRow street = PlacexTestRow.make_street("Burg").id(900000).add(jdbc);
+        PlacexTestRow house1 = new PlacexTestRow("place", "house").name("House 1").parent(street).add(jdbc);
+        PlacexTestRow house2 = new PlacexTestRow("place", "house").name("House 2").parent(street).add(jdbc);
+
+        (new PhotonUpdateRow("placex", house1.getPlaceId(), "UPDATE")).add(jdbc);
+        connector.update();
+
+        jdbc.update("UPDATE placex SET name = '{\"name\": \"Schloss\"}' FORMAT JSON WHERE place_id = ?", street.getPlaceId());
+        (new PhotonUpdateRow("placex", house2.getPlaceId(), "UPDATE")).add(jdbc);
+        // Push the street into the next chunk of the update log.
+        for (long placeId = 500000; placeId < 501000; ++placeId) {
+            (new PhotonUpdateRow("placex", placeId, "DELETE")).add(jdbc);
+        }
+        (new PhotonUpdateRow("placex", street.getPlaceId(), "UPDATE")).add(jdbc);
+        connector.update();
+
+        AssertUtil.assertAddressName("Schloss", updater.getCreated(house2.getPlaceId()), AddressType.STREET);
+    }
 }
@@ -0,0 +1,44 @@
+package de.komoot.photon.nominatim.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParentAddressCacheTest {
+
+    private static List<AddressRow> terms(String name) {
+        return List.of(new AddressRow(Map.of("name", name), "highway", "residential", 26));
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsDropped() {
+        ParentAddressCache cache = new ParentAddressCache(2);
+        cache.put(1, terms("First"));
+        cache.put(2, terms("Second"));
+
+        assertNotNull(cache.get(1));
+
+        cache.put(3, terms("Third"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(3));
+    }
+
+    @Test
+    void testInvalidate() {
+        ParentAddressCache cache = new ParentAddressCache(10);
+        cache.put(1, terms("First"));
+        cache.put(2, terms("Second"));
+
+        cache.invalidate(List.of(2L, 5L));
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+    }
+}
@@ -13,6 +13,7 @@ import static org.junit.jupiter.api.Assertions.*;
 public class CollectingImporter implements Importer {
     private List<Map.Entry<Integer, PhotonDoc>> docs = new ArrayList<>();
     private int finishCalled = 0;
+    private int flushesToFail = 0;
 
 
     @Override
@@ -26,6 +27,22 @@ public class CollectingImporter implements Importer {
         ++finishCalled;
     }
 
+    @Override
+    public synchronized boolean flush() {
+        if (flushesToFail > 0) {
+            --flushesToFail;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Let the given number of following flushes report lost documents.
+     */
+    public synchronized void failNextFlushes(int num) {
+        flushesToFail = num;
+    }
+
     public void assertFinishCalled(int num) {
         assertEquals(num, finishCalled);
     }
@@ -14,6 +14,9 @@ public class CollectingUpdater implements Updater {
     private List<Map.Entry<Integer, Long>> deleted = new ArrayList<>();
     private List<Map.Entry<Integer, Long>> existing = new ArrayList<>();
     private int finishCalled = 0;
+    private boolean failFlush = false;
+    private int numFlushes = 0;
+    private int numFinalFlushes = 0;
 
     @Override
     public void create(PhotonDoc doc, int objectId) {
@@ -39,6 +42,30 @@ public class CollectingUpdater implements Updater {
     @Override
     public void finish() { ++finishCalled; }
 
+    @Override
+    public boolean flush() {
+        ++numFlushes;
+        return !failFlush;
+    }
+
+    @Override
+    public boolean flushFinal() {
+        ++numFinalFlushes;
+        return !failFlush;
+    }
+
+    public int numFlushes() {
+        return numFlushes;
+    }
+
+    public int numFinalFlushes() {
+        return numFinalFlushes;
+    }
+
+    public void setFailFlush(boolean failFlush) {
+        this.failFlush = failFlush;
+    }
+
 
     public void addExisting(long placeId, int ... objectId)
     {
@@ -87,6 +114,16 @@ public class CollectingUpdater implements Updater {
         assertTrue(objectId >= 0, "Row not found");
     }
 
+    public PhotonDoc getCreated(long id) {
+        for (Map.Entry<Integer, PhotonDoc> outdoc : created) {
+            if (outdoc.getValue().getPlaceId() == id) {
+                return outdoc.getValue();
+            }
+        }
+
+        return null;
+    }
+
     public void assertHasDeleted(long id) {
         assertHasDeleted(id, 1);
     }
@@ -14,8 +14,12 @@ public class H2DataAdapter implements DBDataAdapter {
 
     @Override
     public Map<String, String> getMap(ResultSet rs, String columnName) throws SQLException {
+        return parseMap(rs.getString(columnName));
+    }
+
+    @Override
+    public Map<String, String> parseMap(String json) {
         Map<String, String> out = new HashMap<>();
-        String json = rs.getString(columnName);
         if (json != null) {
             JSONObject obj = new JSONObject(json);
             for (String key : obj.keySet()) {
@@ -2,6 +2,8 @@ package de.komoot.photon.query;
 
 import org.locationtech.jts.geom.Envelope;
 import de.komoot.photon.searcher.TagFilter;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -210,4 +212,34 @@ class PhotonRequestFactoryTest {
         assertTrue(exception.getMessage().contains(expectedMessageFragment),
                 String.format("Error message doesn not contain '%s': %s", expectedMessageFragment, exception.getMessage()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testJsonParameters() throws Exception {
+        PhotonRequestFactory factory = new PhotonRequestFactory(Collections.singletonList("en"), "en", 50);
+        JSONObject json = new JSONObject()
+                .put("q", "hanover")
+                .put("limit", 5)
+                .put("lat", 52.3)
+                .put("lon", 9.7)
+                .put("osm_tag", new JSONArray().put("tourism").put("!amenity:bar"))
+                .put("layer", "city");
+
+        PhotonRequest photonRequest = factory.create(new JsonRequestParameters(json, null));
+
+        assertEquals("hanover", photonRequest.getQuery());
+        assertEquals("en", photonRequest.getLanguage());
+        assertEquals(5, photonRequest.getLimit());
+        assertEquals(9.7, photonRequest.getLocationForBias().getX(), 0.00001);
+        assertEquals(52.3, photonRequest.getLocationForBias().getY(), 0.00001);
+        assertEquals(2, photonRequest.getOsmTagFilters().size());
+        assertEquals(Set.of("city"), photonRequest.getLayerFilters());
+    }
+
+    @Test
+    void testJsonParametersUnknownParameter() {
+        PhotonRequestFactory factory = new PhotonRequestFactory(Collections.singletonList("en"), "en", 50);
+        JSONObject json = new JSONObject().put("q", "hanover").put("foo", "bar");
+
+        assertThrows(BadRequestException.class, () -> factory.create(new JsonRequestParameters(json, null)));
+    }
+}
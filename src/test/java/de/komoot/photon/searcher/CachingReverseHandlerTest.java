@@ -0,0 +1,131 @@
+package de.komoot.photon.searcher;
+
+import de.komoot.photon.query.ReverseRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingReverseHandlerTest {
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private final List<PhotonResult> places = new ArrayList<>();
+    private int numSearches;
+    private ReverseHandler database;
+
+    @BeforeEach
+    void setUp() {
+        places.clear();
+        numSearches = 0;
+
+        // Simple reverse search over a list of places.
+        database = new ReverseHandler() {
+            @Override
+            public List<PhotonResult> reverse(ReverseRequest request) {
+                ++numSearches;
+                final double lat = request.getLocation().getY();
+                final double lon = request.getLocation().getX();
+                return places.stream()
+                        .filter(p -> distance(lat, lon, p) <= request.getRadius() * 1000)
+                        .sorted(Comparator.comparingDouble(p -> distance(lat, lon, p)))
+                        .limit(request.getLimit())
+                        .collect(Collectors.toList());
+            }
+
+            @Override
+            public String dumpQuery(ReverseRequest photonRequest) {
+                return "{}";
+            }
+        };
+    }
+
+    private static double distance(double lat, double lon, PhotonResult result) {
+        final double lat2 = result.getCoordinates()[1];
+        final double dLat = Math.toRadians(lat2 - lat);
+        final double dLon = Math.toRadians(result.getCoordinates()[0] - lon);
+        final double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat)) * Math.cos(Math.toRadians(lat2))
+                  * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * 6371e3 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private void addPlace(double lon, double lat) {
+        MockPhotonResult result = new MockPhotonResult();
+        result.coordinates[0] = lon;
+        result.coordinates[1] = lat;
+        result.data.put("osm_id", places.size());
+        places.add(result);
+    }
+
+    private ReverseRequest createRequest(double lon, double lat, int limit, boolean distanceSort) {
+        return new ReverseRequest(FACTORY.createPoint(new Coordinate(lon, lat)), "en", 1.0, null,
+                                  limit, distanceSort, Set.of(), false);
+    }
+
+    @Test
+    void testNearbyLookupsUseCache() {
+        addPlace(13.3990, 52.5000);
+        addPlace(13.4008, 52.5000);
+        addPlace(13.4100, 52.5000);
+
+        CachingReverseHandler handler = new CachingReverseHandler(database, 1, 60);
+
+        // Both locations are in the same geohash cell.
+        List<PhotonResult> first = handler.reverse(createRequest(13.39925, 52.50001, 2, true));
+        List<PhotonResult> second = handler.reverse(createRequest(13.40050, 52.50002, 2, true));
+
+        assertEquals(1, numSearches);
+        assertEquals(List.of(places.get(0), places.get(1)), first);
+        assertEquals(List.of(places.get(1), places.get(0)), second);
+    }
+
+    @Test
+    void testCachedResultsAreExact() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 500; ++i) {
+            addPlace(13.4 + random.nextDouble() * 0.05, 52.5 + random.nextDouble() * 0.05);
+        }
+
+        CachingReverseHandler handler = new CachingReverseHandler(database, 1, 60);
+
+        for (int i = 0; i < 200; ++i) {
+            final double lon = 13.41 + random.nextDouble() * 0.01;
+            final double lat = 52.51 + random.nextDouble() * 0.01;
+            final int limit = 1 + random.nextInt(10);
+
+            assertEquals(database.reverse(createRequest(lon, lat, limit, true)),
+                         handler.reverse(createRequest(lon, lat, limit, true)));
+        }
+    }
+
+    @Test
+    void testUnsortedRequestsBypassCache() {
+        addPlace(13.4000, 52.5000);
+
+        CachingReverseHandler handler = new CachingReverseHandler(database, 1, 60);
+
+        handler.reverse(createRequest(13.4, 52.5, 1, false));
+        handler.reverse(createRequest(13.4, 52.5, 1, false));
+
+        assertEquals(2, numSearches);
+        assertEquals(0, handler.estimatedSize());
+    }
+
+    @Test
+    void testInvalidateAll() {
+        addPlace(13.4000, 52.5000);
+
+        CachingReverseHandler handler = new CachingReverseHandler(database, 1, 60);
+
+        handler.reverse(createRequest(13.4, 52.5, 1, true));
+        handler.invalidateAll();
+        handler.reverse(createRequest(13.4, 52.5, 1, true));
+
+        assertEquals(2, numSearches);
+    }
+}
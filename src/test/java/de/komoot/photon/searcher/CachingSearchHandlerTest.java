@@ -0,0 +1,124 @@
+package de.komoot.photon.searcher;
+
+import de.komoot.photon.query.PhotonRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingSearchHandlerTest {
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private final List<String> searched = new ArrayList<>();
+    private CachingSearchHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        searched.clear();
+        handler = new CachingSearchHandler(new SearchHandler() {
+            @Override
+            public List<PhotonResult> search(PhotonRequest photonRequest) {
+                searched.add(photonRequest.getQuery());
+                if ("fail".equals(photonRequest.getQuery())) {
+                    return new FailedResults("Error during search");
+                }
+                return List.of(new MockPhotonResult());
+            }
+
+            @Override
+            public String dumpQuery(PhotonRequest photonRequest) {
+                return "{}";
+            }
+        }, 1, 60);
+    }
+
+    private PhotonRequest createRequest(String query, String language, Point bias, int zoom) {
+        PhotonRequest request = Mockito.mock(PhotonRequest.class);
+        Mockito.when(request.getQuery()).thenReturn(query);
+        Mockito.when(request.getLanguage()).thenReturn(language);
+        Mockito.when(request.getLimit()).thenReturn(15);
+        Mockito.when(request.getLocationForBias()).thenReturn(bias);
+        Mockito.when(request.getScaleForBias()).thenReturn(0.2);
+        Mockito.when(request.getZoomForBias()).thenReturn(zoom);
+        Mockito.when(request.getOsmTagFilters()).thenReturn(List.of());
+        Mockito.when(request.getLayerFilters()).thenReturn(Set.of());
+
+        return request;
+    }
+
+    private PhotonRequest createRequest(String query, String language) {
+        return createRequest(query, language, null, 14);
+    }
+
+    @Test
+    void testRepeatedQueryIsCached() {
+        List<PhotonResult> first = handler.search(createRequest("berlin", "en"));
+        List<PhotonResult> second = handler.search(createRequest("  Berlin ", "en"));
+
+        assertEquals(List.of("berlin"), searched);
+        assertSame(first, second);
+    }
+
+    @Test
+    void testDifferentLanguageIsNotCached() {
+        handler.search(createRequest("berlin", "en"));
+        handler.search(createRequest("berlin", "de"));
+
+        assertEquals(2, searched.size());
+    }
+
+    @Test
+    void testBiasIsQuantized() {
+        handler.search(createRequest("berlin", "en", FACTORY.createPoint(new Coordinate(13.40001, 52.50001)), 10));
+        handler.search(createRequest("berlin", "en", FACTORY.createPoint(new Coordinate(13.40002, 52.50002)), 10));
+        assertEquals(1, searched.size());
+
+        handler.search(createRequest("berlin", "en", FACTORY.createPoint(new Coordinate(14.4, 52.5)), 10));
+        handler.search(createRequest("berlin", "en", FACTORY.createPoint(new Coordinate(13.40001, 52.50001)), 11));
+        handler.search(createRequest("berlin", "en"));
+        assertEquals(4, searched.size());
+    }
+
+    @Test
+    void testDebugRequestsBypassCache() {
+        PhotonRequest request = createRequest("berlin", "en");
+        Mockito.when(request.getDebug()).thenReturn(true);
+
+        handler.search(request);
+        handler.search(request);
+
+        assertEquals(2, searched.size());
+        assertEquals(0, handler.estimatedSize());
+    }
+
+    @Test
+    void testFailedBatchRequestIsNotCached() {
+        List<List<PhotonResult>> results = handler.searchBatch(
+                List.of(createRequest("fail", "en"), createRequest("berlin", "en")));
+
+        assertInstanceOf(FailedResults.class, results.get(0));
+        assertEquals("Error during search", ((FailedResults) results.get(0)).getMessage());
+        assertEquals(1, results.get(1).size());
+
+        handler.searchBatch(List.of(createRequest("fail", "en"), createRequest("berlin", "en")));
+
+        assertEquals(List.of("fail", "berlin", "fail"), searched);
+    }
+
+    @Test
+    void testInvalidateAll() {
+        handler.search(createRequest("berlin", "en"));
+        handler.invalidateAll();
+        handler.search(createRequest("berlin", "en"));
+
+        assertEquals(2, searched.size());
+    }
+}
@@ -0,0 +1,51 @@
+package de.komoot.photon.searcher;
+
+import de.komoot.photon.Constants;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeocodeJsonWriterTest {
+
+    private String write(List<PhotonResult> results) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new GeocodeJsonWriter("en").write(results, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testSameAsFormatter() throws IOException {
+        List<PhotonResult> results = List.of(
+                new MockPhotonResult()
+                        .put(Constants.OSM_ID, 12345L)
+                        .put(Constants.OSM_TYPE, "N")
+                        .put(Constants.OSM_KEY, "leisure")
+                        .put(Constants.OSM_VALUE, "park")
+                        .put(Constants.POSTCODE, "99999")
+                        .put("extra", Map.of("wikidata", "Q42"))
+                        .putLocalized(Constants.NAME, "en", "Park \"Foo\" ü")
+                        .putLocalized(Constants.CITY, "en", "Bar"),
+                new MockPhotonResult()
+                        .put(Constants.OSM_ID, 7)
+                        .putLocalized(Constants.NAME, "en", "Bar Park"));
+
+        String expected = new GeocodeJsonFormatter(false, "en").convert(results, null);
+
+        assertTrue(new JSONObject(expected).similar(new JSONObject(write(results))));
+    }
+
+    @Test
+    void testEmptyResults() throws IOException {
+        JSONObject json = new JSONObject(write(List.of()));
+
+        assertEquals("FeatureCollection", json.getString("type"));
+        assertTrue(json.getJSONArray("features").isEmpty());
+    }
+}